@@ -0,0 +1,22 @@
+package com.cvieira.libraryapi.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Variante reativa (WebFlux + R2DBC) dos endpoints de livros e empréstimos, com os mesmos contratos
+ * de /api/books e /api/loans da library-api. Para comparar com a pilha servlet, suba esta aplicação
+ * e rode o teste de carga da library-api apontando para ela:
+ *
+ * <pre>
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.args="-Dloadtest.baseUrl=http://localhost:8080 -Dloadtest.clients=256"
+ * </pre>
+ */
+@SpringBootApplication
+public class LibraryApiReactiveApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(LibraryApiReactiveApplication.class, args);
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.cvieira.libraryapi.reactive.api;
+
+import com.cvieira.libraryapi.reactive.api.exception.ApiErrors;
+import com.cvieira.libraryapi.reactive.exception.BusinessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestControllerAdvice
+public class ApplicationControllerAdvice {
+
+    private static final String UK_ISBN = "UK_BOOK_ISBN";
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleValidationException(WebExchangeBindException ex) {
+        return new ApiErrors(ex.getBindingResult());
+    }
+
+    @ExceptionHandler(BusinessException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleBusinessException(BusinessException ex) {
+        return new ApiErrors(ex);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        if(message != null && message.toUpperCase().contains(UK_ISBN)) {
+            return new ResponseEntity(new ApiErrors(new BusinessException("ISBN já cadastrado")), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity(new ApiErrors(new BusinessException("Violação de integridade dos dados")), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity handleResponseStatusException(ResponseStatusException ex) {
+        return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
+    }
+}
@@ -0,0 +1,35 @@
+package com.cvieira.libraryapi.reactive.config;
+
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import reactor.core.publisher.Mono;
+
+@Configuration
+public class DatabaseConfig {
+
+    @Bean
+    public ConnectionFactoryInitializer initializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("schema.sql")));
+        return initializer;
+    }
+
+    /**
+     * Equivalente ao @PrePersist/@PreUpdate do Loan da library-api: mantém o active_book_id, base da
+     * constraint de um empréstimo ativo por livro, de acordo com a situação do empréstimo.
+     */
+    @Bean
+    public BeforeConvertCallback<Loan> loanActiveBookCallback() {
+        return (loan, table) -> {
+            loan.setActiveBookId(loan.isReturned() ? null : loan.getBookId());
+            return Mono.just(loan);
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.cvieira.libraryapi.reactive.dto;
+
+
+import lombok.*;
+
+import javax.validation.constraints.NotEmpty;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookDTO {
+
+    private Long id;
+
+    @NotEmpty
+    private String title;
+
+    @NotEmpty
+    private String author;
+
+    @NotEmpty
+    private String isbn;
+
+}
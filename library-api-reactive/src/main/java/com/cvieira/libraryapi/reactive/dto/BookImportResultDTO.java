@@ -0,0 +1,22 @@
+package com.cvieira.libraryapi.reactive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+
+    public enum Status {
+        CREATED, DUPLICATED, INVALID
+    }
+
+    private String isbn;
+    private Long id;
+    private Status status;
+    private String message;
+}
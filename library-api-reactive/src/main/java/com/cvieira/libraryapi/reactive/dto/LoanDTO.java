@@ -0,0 +1,20 @@
+package com.cvieira.libraryapi.reactive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDTO {
+
+    private Long id;
+    private String isbn;
+    private String customer;
+    private String email;
+    private BookDTO book;
+
+}
@@ -0,0 +1,15 @@
+package com.cvieira.libraryapi.reactive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanFilterDTO {
+    private String isbn;
+    private String customer;
+}
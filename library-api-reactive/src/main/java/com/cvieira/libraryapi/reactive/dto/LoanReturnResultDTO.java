@@ -0,0 +1,19 @@
+package com.cvieira.libraryapi.reactive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnResultDTO {
+    private int returned;
+    private List<Long> notFound;
+    private List<Long> alreadyReturned;
+    private List<String> isbnsNotLoaned;
+}
@@ -0,0 +1,30 @@
+package com.cvieira.libraryapi.reactive.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resposta das listagens paginadas: o conteúdo, o número da próxima página (ausente na última) e o total.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageDTO<T> {
+
+    private List<T> content;
+    private Integer next;
+    private Long total;
+
+    public static <S, T> PageDTO<T> of(Page<S> page, Function<S, T> mapper) {
+        List<T> content = page.getContent().stream().map(mapper).collect(Collectors.toList());
+        return new PageDTO<>(content, page.hasNext() ? page.getNumber() + 1 : null, page.getTotalElements());
+    }
+}
@@ -0,0 +1,29 @@
+package com.cvieira.libraryapi.reactive.mapper;
+
+import com.cvieira.libraryapi.reactive.dto.BookDTO;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+
+public final class BookMapper {
+
+    private BookMapper() {
+    }
+
+    public static BookDTO toDTO(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+
+    public static Book toEntity(BookDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        Book book = new Book();
+        book.setId(dto.getId());
+        book.setTitle(dto.getTitle());
+        book.setAuthor(dto.getAuthor());
+        book.setIsbn(dto.getIsbn());
+        return book;
+    }
+}
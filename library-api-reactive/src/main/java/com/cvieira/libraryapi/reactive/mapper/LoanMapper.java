@@ -0,0 +1,24 @@
+package com.cvieira.libraryapi.reactive.mapper;
+
+import com.cvieira.libraryapi.reactive.dto.BookDTO;
+import com.cvieira.libraryapi.reactive.dto.LoanDTO;
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+
+public final class LoanMapper {
+
+    private LoanMapper() {
+    }
+
+    public static LoanDTO toDTO(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        BookDTO book = BookMapper.toDTO(loan.getBook());
+        return new LoanDTO(
+                loan.getId(),
+                book != null ? book.getIsbn() : null,
+                loan.getCustomer(),
+                loan.getCustomerEmail(),
+                book);
+    }
+}
@@ -0,0 +1,25 @@
+package com.cvieira.libraryapi.reactive.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("book")
+public class Book {
+
+    @Id
+    private Long id;
+
+    private String title;
+
+    private String author;
+
+    private String isbn;
+}
@@ -0,0 +1,52 @@
+package com.cvieira.libraryapi.reactive.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * O R2DBC não carrega associações, então o empréstimo guarda o id do livro e o livro
+ * é preenchido pelo serviço quando a resposta precisa dele.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("loan")
+public class Loan {
+
+    public static final String UK_ACTIVE_BOOK = "uk_loan_active_book";
+
+    @Id
+    private Long id;
+
+    private String customer;
+
+    @Column("customer_email")
+    private String customerEmail;
+
+    @Column("id_book")
+    private Long bookId;
+
+    @Transient
+    private Book book;
+
+    private LocalDate loanDate;
+
+    private boolean returned;
+
+    /**
+     * Id do livro enquanto o empréstimo está em aberto e nulo depois da devolução, preenchido antes de
+     * gravar pelo callback do {@link com.cvieira.libraryapi.reactive.config.DatabaseConfig}.
+     */
+    @Column("active_book_id")
+    private Long activeBookId;
+
+}
@@ -0,0 +1,20 @@
+package com.cvieira.libraryapi.reactive.model.repository;
+
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface BookRepository extends R2dbcRepository<Book, Long>, BookRepositoryCustom {
+
+    Mono<Boolean> existsByIsbn(String isbn);
+
+    Mono<Book> findByIsbn(String isbn);
+
+    @Query("select isbn from book where isbn in (:isbns)")
+    Flux<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+}
@@ -0,0 +1,15 @@
+package com.cvieira.libraryapi.reactive.model.repository;
+
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface BookRepositoryCustom {
+
+    Flux<Book> findByFilter(Book filter, Pageable pageable);
+
+    Mono<Long> countByFilter(Book filter);
+
+    Flux<Book> search(String[] terms, int limit);
+}
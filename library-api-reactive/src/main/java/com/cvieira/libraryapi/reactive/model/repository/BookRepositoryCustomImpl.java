@@ -0,0 +1,68 @@
+package com.cvieira.libraryapi.reactive.model.repository;
+
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Filtros equivalentes ao Example com CONTAINING e ignore case da library-api.
+ */
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private final R2dbcEntityTemplate template;
+
+    public BookRepositoryCustomImpl(R2dbcEntityTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public Flux<Book> findByFilter(Book filter, Pageable pageable) {
+        Query query = Query.query(criteria(filter)).with(pageable);
+        if (pageable.getSort().isUnsorted()) {
+            query = query.sort(Sort.by("id"));
+        }
+        return template.select(Book.class).matching(query).all();
+    }
+
+    @Override
+    public Mono<Long> countByFilter(Book filter) {
+        return template.count(Query.query(criteria(filter)), Book.class);
+    }
+
+    @Override
+    public Flux<Book> search(String[] terms, int limit) {
+        Criteria criteria = Criteria.empty();
+        for (String term : terms) {
+            String pattern = contains(term);
+            criteria = criteria.and(Criteria.where("title").like(pattern).ignoreCase(true)
+                    .or("author").like(pattern).ignoreCase(true)
+                    .or("isbn").like(pattern).ignoreCase(true));
+        }
+        return template.select(Book.class)
+                .matching(Query.query(criteria).sort(Sort.by("id")).limit(limit))
+                .all();
+    }
+
+    private static Criteria criteria(Book filter) {
+        Criteria criteria = Criteria.empty();
+        if (filter.getTitle() != null) {
+            criteria = criteria.and(Criteria.where("title").like(contains(filter.getTitle())).ignoreCase(true));
+        }
+        if (filter.getAuthor() != null) {
+            criteria = criteria.and(Criteria.where("author").like(contains(filter.getAuthor())).ignoreCase(true));
+        }
+        if (filter.getIsbn() != null) {
+            criteria = criteria.and(Criteria.where("isbn").like(contains(filter.getIsbn())).ignoreCase(true));
+        }
+        return criteria;
+    }
+
+    private static String contains(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
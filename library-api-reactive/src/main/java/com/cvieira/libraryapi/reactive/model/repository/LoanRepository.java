@@ -0,0 +1,44 @@
+package com.cvieira.libraryapi.reactive.model.repository;
+
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface LoanRepository extends R2dbcRepository<Loan, Long> {
+
+    @Query("select count(*) > 0 from loan where id_book = :bookId and returned = false")
+    Mono<Boolean> existsByBookIdAndNotReturned(@Param("bookId") Long bookId);
+
+    @Query("select l.* from loan l join book b on b.id = l.id_book " +
+            "where b.isbn = :isbn or l.customer = :customer order by l.id limit :limit offset :offset")
+    Flux<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn,
+                                        @Param("customer") String customer,
+                                        @Param("limit") int limit,
+                                        @Param("offset") long offset);
+
+    @Query("select count(*) from loan l join book b on b.id = l.id_book where b.isbn = :isbn or l.customer = :customer")
+    Mono<Long> countByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer);
+
+    Flux<Loan> findByBookId(Long bookId, Pageable pageable);
+
+    Mono<Long> countByBookId(Long bookId);
+
+    @Query("select l.id, l.id_book as book_id, b.isbn, l.returned from loan l join book b on b.id = l.id_book " +
+            "where l.id in (:ids)")
+    Flux<LoanStatus> findStatusByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select l.id, l.id_book as book_id, b.isbn, l.returned from loan l join book b on b.id = l.id_book " +
+            "where b.isbn in (:isbns) and l.returned = false")
+    Flux<LoanStatus> findActiveStatusByIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Modifying
+    @Query("update loan set returned = true, active_book_id = null where id in (:ids) and returned = false")
+    Mono<Integer> markReturned(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,18 @@
+package com.cvieira.libraryapi.reactive.model.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Projeção com o mínimo necessário para decidir a devolução de um empréstimo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanStatus {
+    private Long id;
+    private Long bookId;
+    private String isbn;
+    private Boolean returned;
+}
@@ -0,0 +1,105 @@
+package com.cvieira.libraryapi.reactive.resource;
+
+import com.cvieira.libraryapi.reactive.dto.BookDTO;
+import com.cvieira.libraryapi.reactive.dto.BookImportResultDTO;
+import com.cvieira.libraryapi.reactive.dto.LoanDTO;
+import com.cvieira.libraryapi.reactive.dto.PageDTO;
+import com.cvieira.libraryapi.reactive.exception.BusinessException;
+import com.cvieira.libraryapi.reactive.mapper.BookMapper;
+import com.cvieira.libraryapi.reactive.mapper.LoanMapper;
+import com.cvieira.libraryapi.reactive.service.BookService;
+import com.cvieira.libraryapi.reactive.service.LoanService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+@Slf4j
+public class BookController {
+
+    private static final int MAX_SEARCH_SIZE = 1000;
+    private static final int MAX_IMPORT_SIZE = 10000;
+
+    private final BookService bookService;
+    private final LoanService loanService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookDTO> create(@RequestBody @Valid BookDTO dto) {
+        log.info("creating  a book for isbn: {}", dto.getIsbn());
+        return bookService.save(BookMapper.toEntity(dto)).map(BookMapper::toDTO);
+    }
+
+    @PostMapping("batch")
+    public Mono<List<BookImportResultDTO>> createAll(@RequestBody List<BookDTO> dtos) {
+        log.info("importing {} books", dtos.size());
+        if(dtos.size() > MAX_IMPORT_SIZE) {
+            return Mono.error(new BusinessException("Máximo de " + MAX_IMPORT_SIZE + " livros por importação"));
+        }
+        return bookService.saveAll(dtos.stream()
+                .map(BookMapper::toEntity)
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("{id}")
+    public Mono<BookDTO> get(@PathVariable Long id) {
+        log.info("Obtaining details for a book id {}", id);
+        return bookService.getById(id)
+                .map(BookMapper::toDTO)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable Long id) {
+        log.info("Delete book for id {}", id);
+        return bookService.getById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(bookService::delete);
+    }
+
+    @PutMapping("{id}")
+    public Mono<BookDTO> update(@PathVariable Long id, @RequestBody @Valid BookDTO bookDTO) {
+        log.info("Update book for id {}", id);
+        return bookService.getById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(book -> {
+                    book.setAuthor(bookDTO.getAuthor());
+                    book.setTitle(bookDTO.getTitle());
+                    return bookService.update(book);
+                })
+                .map(BookMapper::toDTO);
+    }
+
+    @GetMapping
+    public Mono<PageDTO<BookDTO>> find(BookDTO dto, Pageable pageRequest) {
+        return bookService.find(BookMapper.toEntity(dto), pageRequest)
+                .map(page -> PageDTO.of(page, BookMapper::toDTO));
+    }
+
+    @GetMapping("search")
+    public Flux<BookDTO> search(@RequestParam("q") String query,
+                                @RequestParam(value = "size", defaultValue = "20") int size) {
+        return bookService.search(query, Math.min(Math.max(size, 1), MAX_SEARCH_SIZE))
+                .map(BookMapper::toDTO);
+    }
+
+    @GetMapping("{id}/loans")
+    public Mono<PageDTO<LoanDTO>> loansByBook(@PathVariable Long id, Pageable pageable) {
+        return bookService.getById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(book -> loanService.getLoansByBook(book, pageable))
+                .map(page -> PageDTO.of(page, LoanMapper::toDTO));
+    }
+}
@@ -0,0 +1,78 @@
+package com.cvieira.libraryapi.reactive.resource;
+
+import com.cvieira.libraryapi.reactive.dto.LoanDTO;
+import com.cvieira.libraryapi.reactive.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.reactive.dto.LoanReturnRequestDTO;
+import com.cvieira.libraryapi.reactive.dto.LoanReturnResultDTO;
+import com.cvieira.libraryapi.reactive.dto.PageDTO;
+import com.cvieira.libraryapi.reactive.dto.ReturnedLoadDTO;
+import com.cvieira.libraryapi.reactive.exception.BusinessException;
+import com.cvieira.libraryapi.reactive.mapper.LoanMapper;
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+import com.cvieira.libraryapi.reactive.service.BookService;
+import com.cvieira.libraryapi.reactive.service.LoanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/loans")
+@RequiredArgsConstructor
+public class LoanController {
+
+    private static final int MAX_RETURN_SIZE = 10000;
+
+    private final LoanService loanService;
+    private final BookService bookService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Long> create(@RequestBody LoanDTO dto) {
+        return bookService.getBookByIsbn(dto.getIsbn())
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn")))
+                .flatMap(book -> loanService.save(Loan.builder()
+                        .book(book)
+                        .customer(dto.getCustomer())
+                        .loanDate(LocalDate.now())
+                        .build()))
+                .map(Loan::getId);
+    }
+
+    @PatchMapping("{id}")
+    public Mono<Void> returnBook(@PathVariable Long id, @RequestBody ReturnedLoadDTO dto) {
+        if(dto.getReturned() == null) {
+            return Mono.error(new BusinessException("Informe se o empréstimo foi devolvido"));
+        }
+        return loanService.getById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(loan -> {
+                    loan.setReturned(dto.getReturned());
+                    return loanService.update(loan);
+                })
+                .then();
+    }
+
+    @PatchMapping("returns")
+    public Mono<LoanReturnResultDTO> returnAll(@RequestBody LoanReturnRequestDTO dto) {
+        int size = (dto.getIds() != null ? dto.getIds().size() : 0)
+                + (dto.getIsbns() != null ? dto.getIsbns().size() : 0);
+        if(size == 0) {
+            return Mono.error(new BusinessException("Informe os ids ou isbns dos empréstimos"));
+        }
+        if(size > MAX_RETURN_SIZE) {
+            return Mono.error(new BusinessException("Máximo de " + MAX_RETURN_SIZE + " devoluções por requisição"));
+        }
+        return loanService.returnAll(dto.getIds(), dto.getIsbns());
+    }
+
+    @GetMapping
+    public Mono<PageDTO<LoanDTO>> find(LoanFilterDTO dto, Pageable pageable) {
+        return loanService.find(dto, pageable)
+                .map(page -> PageDTO.of(page, LoanMapper::toDTO));
+    }
+}
@@ -0,0 +1,28 @@
+package com.cvieira.libraryapi.reactive.service;
+
+import com.cvieira.libraryapi.reactive.dto.BookImportResultDTO;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface BookService {
+    Mono<Book> save(Book any);
+
+    Mono<List<BookImportResultDTO>> saveAll(List<Book> books);
+
+    Mono<Book> getById(Long id);
+
+    Mono<Void> delete(Book book);
+
+    Mono<Book> update(Book book);
+
+    Mono<Page<Book>> find(Book filter, Pageable pageRequest);
+
+    Mono<Book> getBookByIsbn(String isbn);
+
+    Flux<Book> search(String query, int size);
+}
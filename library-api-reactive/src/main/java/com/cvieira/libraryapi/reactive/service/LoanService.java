@@ -0,0 +1,25 @@
+package com.cvieira.libraryapi.reactive.service;
+
+import com.cvieira.libraryapi.reactive.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.reactive.dto.LoanReturnResultDTO;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface LoanService {
+    Mono<Loan> save(Loan loan);
+
+    Mono<Loan> getById(Long id);
+
+    Mono<Loan> update(Loan loan);
+
+    Mono<LoanReturnResultDTO> returnAll(Collection<Long> ids, Collection<String> isbns);
+
+    Mono<Page<Loan>> find(LoanFilterDTO filter, Pageable pageable);
+
+    Mono<Page<Loan>> getLoansByBook(Book book, Pageable pageable);
+}
@@ -0,0 +1,145 @@
+package com.cvieira.libraryapi.reactive.service.impl;
+
+import com.cvieira.libraryapi.reactive.dto.BookImportResultDTO;
+import com.cvieira.libraryapi.reactive.exception.BusinessException;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import com.cvieira.libraryapi.reactive.model.repository.BookRepository;
+import com.cvieira.libraryapi.reactive.service.BookService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class BookServiceImpl implements BookService {
+
+    private static final int IMPORT_LOOKUP_SIZE = 1000;
+
+    private BookRepository repository;
+
+    public BookServiceImpl(BookRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Mono<Book> save(Book book) {
+        return repository.existsByIsbn(book.getIsbn())
+                .flatMap(exists -> exists
+                        ? Mono.error(new BusinessException("ISBN já cadastrado"))
+                        : repository.save(book));
+    }
+
+    @Override
+    @Transactional
+    public Mono<List<BookImportResultDTO>> saveAll(List<Book> books) {
+        BookImportResultDTO[] results = new BookImportResultDTO[books.size()];
+        Set<String> isbns = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            if(isBlank(book.getTitle()) || isBlank(book.getAuthor()) || isBlank(book.getIsbn())) {
+                results[i] = importResult(book, BookImportResultDTO.Status.INVALID, "Título, autor e isbn são obrigatórios");
+            } else if(!isbns.add(book.getIsbn())) {
+                results[i] = importResult(book, BookImportResultDTO.Status.DUPLICATED, "ISBN repetido na requisição");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        List<List<String>> lookups = new ArrayList<>();
+        List<String> pending = new ArrayList<>(isbns);
+        for (int from = 0; from < pending.size(); from += IMPORT_LOOKUP_SIZE) {
+            lookups.add(pending.subList(from, Math.min(from + IMPORT_LOOKUP_SIZE, pending.size())));
+        }
+
+        return Flux.fromIterable(lookups)
+                .concatMap(repository::findExistingIsbns)
+                .collect(HashSet<String>::new, Set::add)
+                .flatMap(existing -> {
+                    List<Book> inserting = new ArrayList<>();
+                    for (Integer i : candidates) {
+                        Book book = books.get(i);
+                        if(existing.contains(book.getIsbn())) {
+                            results[i] = importResult(book, BookImportResultDTO.Status.DUPLICATED, "ISBN já cadastrado");
+                        } else {
+                            inserting.add(book);
+                        }
+                    }
+                    return repository.saveAll(inserting).collectList();
+                })
+                .map(saved -> {
+                    for (int i = 0, next = 0; i < results.length; i++) {
+                        if(results[i] == null) {
+                            results[i] = importResult(saved.get(next++), BookImportResultDTO.Status.CREATED, null);
+                        }
+                    }
+                    return Arrays.asList(results);
+                });
+    }
+
+    @Override
+    public Mono<Book> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public Mono<Void> delete(Book book) {
+        if(book == null || book.getId() == null) {
+            return Mono.error(new IllegalArgumentException("Book id cant be null."));
+        }
+        return repository.delete(book);
+    }
+
+    @Override
+    public Mono<Book> update(Book book) {
+        if(book == null || book.getId() == null) {
+            return Mono.error(new IllegalArgumentException("Book id cant be null."));
+        }
+        return repository.save(book);
+    }
+
+    @Override
+    public Mono<Page<Book>> find(Book filter, Pageable pageRequest) {
+        return repository.findByFilter(filter, pageRequest)
+                .collectList()
+                .zipWith(repository.countByFilter(filter))
+                .map(result -> new PageImpl<>(result.getT1(), pageRequest, result.getT2()));
+    }
+
+    @Override
+    public Mono<Book> getBookByIsbn(String isbn) {
+        return repository.findByIsbn(isbn);
+    }
+
+    @Override
+    public Flux<Book> search(String query, int size) {
+        String trimmed = query == null ? "" : query.trim();
+        if(trimmed.isEmpty()) {
+            return Flux.empty();
+        }
+        return repository.search(trimmed.split("\\s+"), size);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static BookImportResultDTO importResult(Book book, BookImportResultDTO.Status status, String message) {
+        return BookImportResultDTO.builder()
+                .isbn(book.getIsbn())
+                .id(book.getId())
+                .status(status)
+                .message(message)
+                .build();
+    }
+}
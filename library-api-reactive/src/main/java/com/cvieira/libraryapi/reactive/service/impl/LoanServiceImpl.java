@@ -0,0 +1,177 @@
+package com.cvieira.libraryapi.reactive.service.impl;
+
+import com.cvieira.libraryapi.reactive.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.reactive.dto.LoanReturnResultDTO;
+import com.cvieira.libraryapi.reactive.exception.BusinessException;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+import com.cvieira.libraryapi.reactive.model.repository.BookRepository;
+import com.cvieira.libraryapi.reactive.model.repository.LoanRepository;
+import com.cvieira.libraryapi.reactive.model.repository.LoanStatus;
+import com.cvieira.libraryapi.reactive.service.LoanService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+@Service
+public class LoanServiceImpl implements LoanService {
+
+    private static final int RETURN_BATCH_SIZE = 1000;
+
+    private LoanRepository repository;
+    private BookRepository bookRepository;
+
+    public LoanServiceImpl(LoanRepository repository, BookRepository bookRepository) {
+        this.repository = repository;
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public Mono<Loan> save(Loan loan) {
+        Long bookId = loan.getBook() != null ? loan.getBook().getId() : loan.getBookId();
+        loan.setBookId(bookId);
+        // a consulta evita o insert no caso comum; entre dois empréstimos simultâneos quem decide é a constraint
+        return repository.existsByBookIdAndNotReturned(bookId)
+                .flatMap(loaned -> loaned
+                        ? Mono.error(new BusinessException("Livro já emprestado"))
+                        : repository.save(loan))
+                .onErrorMap(LoanServiceImpl::isActiveBookViolation, ex -> new BusinessException("Livro já emprestado"));
+    }
+
+    @Override
+    public Mono<Loan> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public Mono<Loan> update(Loan loan) {
+        return repository.save(loan)
+                .onErrorMap(LoanServiceImpl::isActiveBookViolation, ex -> new BusinessException("Livro já emprestado"));
+    }
+
+    @Override
+    @Transactional
+    public Mono<LoanReturnResultDTO> returnAll(Collection<Long> ids, Collection<String> isbns) {
+        List<Long> requestedIds = distinct(ids);
+        List<String> requestedIsbns = distinct(isbns);
+
+        Mono<List<LoanStatus>> byId = Flux.fromIterable(batches(requestedIds))
+                .concatMap(repository::findStatusByIds)
+                .collectList();
+        Mono<List<LoanStatus>> byIsbn = Flux.fromIterable(batches(requestedIsbns))
+                .concatMap(repository::findActiveStatusByIsbns)
+                .collectList();
+
+        return byId.zipWith(byIsbn).flatMap(statuses -> {
+            Set<Long> toReturn = new LinkedHashSet<>();
+            List<Long> alreadyReturned = new ArrayList<>();
+            Set<Long> found = new HashSet<>();
+            for (LoanStatus status : statuses.getT1()) {
+                found.add(status.getId());
+                if (Boolean.TRUE.equals(status.getReturned())) {
+                    alreadyReturned.add(status.getId());
+                } else {
+                    toReturn.add(status.getId());
+                }
+            }
+            List<Long> notFound = new ArrayList<>();
+            for (Long id : requestedIds) {
+                if (!found.contains(id)) {
+                    notFound.add(id);
+                }
+            }
+
+            Set<String> loanedIsbns = new HashSet<>();
+            for (LoanStatus status : statuses.getT2()) {
+                loanedIsbns.add(status.getIsbn());
+                toReturn.add(status.getId());
+            }
+            List<String> isbnsNotLoaned = new ArrayList<>();
+            for (String isbn : requestedIsbns) {
+                if (!loanedIsbns.contains(isbn)) {
+                    isbnsNotLoaned.add(isbn);
+                }
+            }
+
+            return Flux.fromIterable(batches(new ArrayList<>(toReturn)))
+                    .concatMap(repository::markReturned)
+                    .reduce(0, Integer::sum)
+                    .map(returned -> LoanReturnResultDTO.builder()
+                            .returned(returned)
+                            .notFound(notFound)
+                            .alreadyReturned(alreadyReturned)
+                            .isbnsNotLoaned(isbnsNotLoaned)
+                            .build());
+        });
+    }
+
+    @Override
+    public Mono<Page<Loan>> find(LoanFilterDTO filter, Pageable pageable) {
+        return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(),
+                        pageable.getPageSize(), pageable.getOffset())
+                .collectList()
+                .flatMap(this::withBooks)
+                .zipWith(repository.countByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer()))
+                .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    @Override
+    public Mono<Page<Loan>> getLoansByBook(Book book, Pageable pageable) {
+        return repository.findByBookId(book.getId(), pageable)
+                .doOnNext(loan -> loan.setBook(book))
+                .collectList()
+                .zipWith(repository.countByBookId(book.getId()))
+                .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    /**
+     * Preenche o livro de cada empréstimo com uma única consulta por página.
+     */
+    private Mono<List<Loan>> withBooks(List<Loan> loans) {
+        Set<Long> bookIds = new HashSet<>();
+        loans.forEach(loan -> bookIds.add(loan.getBookId()));
+        if (bookIds.isEmpty()) {
+            return Mono.just(loans);
+        }
+        return bookRepository.findAllById(bookIds)
+                .collectMap(Book::getId, Function.identity())
+                .map((Map<Long, Book> books) -> {
+                    loans.forEach(loan -> loan.setBook(books.get(loan.getBookId())));
+                    return loans;
+                });
+    }
+
+    private static boolean isActiveBookViolation(Throwable ex) {
+        String message = ex instanceof DataIntegrityViolationException
+                ? ((DataIntegrityViolationException) ex).getMostSpecificCause().getMessage()
+                : null;
+        return message != null && message.toUpperCase().contains(Loan.UK_ACTIVE_BOOK.toUpperCase());
+    }
+
+    private static <T> List<T> distinct(Collection<T> values) {
+        return values != null ? new ArrayList<>(new LinkedHashSet<>(values)) : Collections.<T>emptyList();
+    }
+
+    private static <T> List<List<T>> batches(List<T> values) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += RETURN_BATCH_SIZE) {
+            batches.add(values.subList(start, Math.min(start + RETURN_BATCH_SIZE, values.size())));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,24 @@
+create table if not exists book (
+    id bigint auto_increment primary key,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255),
+    constraint uk_book_isbn unique (isbn)
+);
+create index if not exists idx_book_title_id on book (title, id);
+
+create table if not exists loan (
+    id bigint auto_increment primary key,
+    customer varchar(100),
+    customer_email varchar(255),
+    id_book bigint references book (id),
+    loan_date date,
+    returned boolean default false not null,
+    -- só preenchida enquanto o empréstimo está em aberto: no máximo um empréstimo ativo por livro.
+    -- Gravada pela aplicação: no H2 1.4.200 uma coluna calculada, com inserts concorrentes, chegou a
+    -- ser avaliada com o id_book do insert de outra sessão.
+    active_book_id bigint,
+    constraint uk_loan_active_book unique (active_book_id)
+);
+create index if not exists idx_loan_customer_id on loan (customer, id);
+create index if not exists idx_loan_book on loan (id_book, returned);
@@ -0,0 +1,95 @@
+package com.cvieira.libraryapi.reactive.model.repository;
+
+import com.cvieira.libraryapi.reactive.config.DatabaseConfig;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataR2dbcTest
+@Import(DatabaseConfig.class)
+public class BookRepositoryTest {
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    public void setUp() {
+        loanRepository.deleteAll().then(bookRepository.deleteAll()).block();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar os livros por trecho do título ignorando maiúsculas e minúsculas")
+    public void findByFilter() {
+        Book first = persistBook("As Aventuras", "Fulano", "001");
+        persistBook("O jardim", "Fulano", "002");
+        Book third = persistBook("Novas aventuras", "Ciclano", "003");
+
+        StepVerifier.create(bookRepository.findByFilter(Book.builder().title("AVENTURA").build(), PageRequest.of(0, 10)))
+                .assertNext(book -> Assertions.assertEquals(first.getId(), book.getId()))
+                .assertNext(book -> Assertions.assertEquals(third.getId(), book.getId()))
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findByFilter(Book.builder().title("aventura").build(), PageRequest.of(1, 1)))
+                .assertNext(book -> Assertions.assertEquals(third.getId(), book.getId()))
+                .verifyComplete();
+        StepVerifier.create(bookRepository.countByFilter(Book.builder().title("aventura").author("fulano").build()))
+                .expectNext(1l)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve tratar curingas do filtro como texto")
+    public void findByFilterWithWildcards() {
+        persistBook("100% aventura", "Fulano", "001");
+        persistBook("100 aventuras", "Fulano", "002");
+
+        StepVerifier.create(bookRepository.countByFilter(Book.builder().title("100%").build()))
+                .expectNext(1l)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve buscar os livros que contêm todos os termos em título, autor ou isbn")
+    public void search() {
+        Book first = persistBook("As aventuras", "Fulano", "001");
+        persistBook("As aventuras", "Ciclano", "002");
+        persistBook("O jardim", "Fulano", "003");
+
+        StepVerifier.create(bookRepository.search(new String[]{"AVENTURAS", "fulano"}, 10))
+                .assertNext(book -> Assertions.assertEquals(first.getId(), book.getId()))
+                .verifyComplete();
+        StepVerifier.create(bookRepository.search(new String[]{"aventuras"}, 1))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve retornar os isbns já cadastrados")
+    public void findExistingIsbns() {
+        persistBook("As aventuras", "Fulano", "001");
+
+        StepVerifier.create(bookRepository.findExistingIsbns(Arrays.asList("001", "002")))
+                .expectNext("001")
+                .verifyComplete();
+    }
+
+    private Book persistBook(String title, String author, String isbn) {
+        return bookRepository.save(Book.builder().title(title).author(author).isbn(isbn).build()).block();
+    }
+}
@@ -0,0 +1,144 @@
+package com.cvieira.libraryapi.reactive.model.repository;
+
+import com.cvieira.libraryapi.reactive.config.DatabaseConfig;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataR2dbcTest
+@Import(DatabaseConfig.class)
+public class LoanRepositoryTest {
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    public void setUp() {
+        loanRepository.deleteAll().then(bookRepository.deleteAll()).block();
+    }
+
+    @Test
+    @DisplayName("Deve verifica se existe empréstimo não devolvido para o livro")
+    public void existsByBookAndNotReturned() {
+        Loan loan = createAndPersistLoan("123");
+
+        StepVerifier.create(loanRepository.existsByBookIdAndNotReturned(loan.getBookId()))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimo pelo isbn do livro ou customer")
+    public void findByBookIsbnOrCustomer() {
+        createAndPersistLoan("123");
+
+        StepVerifier.create(loanRepository.findByBookIsbnOrCustomer("123", "Fulano", 10, 0))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(loanRepository.countByBookIsbnOrCustomer("123", "Fulano"))
+                .expectNext(1l)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve devolver os empréstimos em um único comando")
+    public void markReturned() {
+        Loan first = createAndPersistLoan("123");
+        Loan second = createAndPersistLoan("456");
+
+        StepVerifier.create(loanRepository.markReturned(Arrays.asList(first.getId(), second.getId())))
+                .expectNext(2)
+                .verifyComplete();
+        StepVerifier.create(loanRepository.findStatusByIds(Arrays.asList(first.getId(), second.getId())))
+                .assertNext(status -> Assertions.assertTrue(status.getReturned()))
+                .assertNext(status -> Assertions.assertTrue(status.getReturned()))
+                .verifyComplete();
+        StepVerifier.create(loanRepository.findActiveStatusByIsbns(Arrays.asList("123", "456")))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Não deve permitir dois empréstimos ativos do mesmo livro")
+    public void rejectSecondActiveLoan() {
+        Loan loan = createAndPersistLoan("123");
+        Loan second = Loan.builder().bookId(loan.getBookId()).customer("Ciclano").loanDate(LocalDate.now()).build();
+
+        StepVerifier.create(loanRepository.save(second))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+
+        loanRepository.markReturned(Arrays.asList(loan.getId())).block();
+        StepVerifier.create(loanRepository.save(second))
+                .assertNext(saved -> Assertions.assertNotNull(saved.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve buscar a situação dos empréstimos com o id e o isbn do livro")
+    public void findStatusByIds() {
+        Loan loan = createAndPersistLoan("123");
+
+        StepVerifier.create(loanRepository.findStatusByIds(Arrays.asList(loan.getId(), loan.getId() + 1)))
+                .assertNext(status -> {
+                    Assertions.assertEquals(loan.getId(), status.getId());
+                    Assertions.assertEquals(loan.getBookId(), status.getBookId());
+                    Assertions.assertEquals("123", status.getIsbn());
+                    Assertions.assertFalse(status.getReturned());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos de um livro por página")
+    public void findByBookId() {
+        Loan first = createAndPersistLoan("123");
+        loanRepository.markReturned(Arrays.asList(first.getId())).block();
+        Loan second = loanRepository.save(Loan.builder().bookId(first.getBookId()).customer("Ciclano")
+                .loanDate(LocalDate.now()).build()).block();
+        loanRepository.markReturned(Arrays.asList(second.getId())).block();
+        Loan third = loanRepository.save(Loan.builder().bookId(first.getBookId()).customer("Beltrano")
+                .loanDate(LocalDate.now()).build()).block();
+        createAndPersistLoan("456");
+
+        StepVerifier.create(loanRepository.findByBookId(first.getBookId(), PageRequest.of(0, 2, Sort.by("id"))))
+                .assertNext(loan -> Assertions.assertEquals(first.getId(), loan.getId()))
+                .assertNext(loan -> Assertions.assertEquals(second.getId(), loan.getId()))
+                .verifyComplete();
+        StepVerifier.create(loanRepository.findByBookId(first.getBookId(), PageRequest.of(1, 2, Sort.by("id"))))
+                .assertNext(loan -> Assertions.assertEquals(third.getId(), loan.getId()))
+                .verifyComplete();
+        StepVerifier.create(loanRepository.countByBookId(first.getBookId()))
+                .expectNext(3l)
+                .verifyComplete();
+    }
+
+    private Loan createAndPersistLoan(String isbn) {
+        Book book = bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build()).block();
+        return loanRepository.save(Loan.builder()
+                .bookId(book.getId())
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .build()).block();
+    }
+}
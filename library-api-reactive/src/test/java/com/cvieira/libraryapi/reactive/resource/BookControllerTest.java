@@ -0,0 +1,131 @@
+package com.cvieira.libraryapi.reactive.resource;
+
+import com.cvieira.libraryapi.reactive.dto.BookDTO;
+import com.cvieira.libraryapi.reactive.exception.BusinessException;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import com.cvieira.libraryapi.reactive.service.BookService;
+import com.cvieira.libraryapi.reactive.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebFluxTest(controllers = BookController.class)
+public class BookControllerTest {
+
+    private static String BOOK_API = "/api/books";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    LoanService loanService;
+
+    @Test
+    @DisplayName("Deve criar um livro com sucesso")
+    public void createBookTest() {
+        Book savedBook = Book.builder().id(10l).author("Artur").title("As aventuras").isbn("001").build();
+        BDDMockito.given(bookService.save(Mockito.any(Book.class))).willReturn(Mono.just(savedBook));
+
+        webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createNewBook())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("id").isEqualTo(10)
+                .jsonPath("title").isEqualTo("As aventuras")
+                .jsonPath("isbn").isEqualTo("001");
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de validação quando não houver dados suficiente para criação do livro")
+    public void createInvalidBookTest() {
+        webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookDTO())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors.length()").isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao tentar cadastrar um livro com isbn já utilizado por outro")
+    public void createBookWithDuplicatedIsbn() {
+        BDDMockito.given(bookService.save(Mockito.any(Book.class)))
+                .willReturn(Mono.error(new BusinessException("ISBN já cadastrado")));
+
+        webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createNewBook())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("ISBN já cadastrado");
+    }
+
+    @Test
+    @DisplayName("Deve retornar resource not found quando o livro procurado não existir")
+    public void bookNotFoundTest() {
+        BDDMockito.given(bookService.getById(Mockito.anyLong())).willReturn(Mono.empty());
+
+        webTestClient.get().uri(BOOK_API + "/1")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros")
+    public void findBooks() {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").build();
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(Mono.just(new PageImpl<>(Arrays.asList(book), PageRequest.of(0, 100), 1)));
+
+        webTestClient.get().uri(BOOK_API + "?title=aventuras&page=0&size=100")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content.length()").isEqualTo(1)
+                .jsonPath("total").isEqualTo(1)
+                .jsonPath("next").doesNotExist()
+                .jsonPath("pageable").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros pelo texto")
+    public void searchBooks() {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").build();
+        BDDMockito.given(bookService.search("aventuras", 20)).willReturn(Flux.just(book));
+
+        webTestClient.get().uri(BOOK_API + "/search?q=aventuras")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("[0].id").isEqualTo(1);
+    }
+
+    private BookDTO createNewBook() {
+        return BookDTO.builder().author("Artur").title("As aventuras").isbn("001").build();
+    }
+}
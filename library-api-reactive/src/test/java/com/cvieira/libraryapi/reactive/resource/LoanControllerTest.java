@@ -0,0 +1,78 @@
+package com.cvieira.libraryapi.reactive.resource;
+
+import com.cvieira.libraryapi.reactive.dto.ReturnedLoadDTO;
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+import com.cvieira.libraryapi.reactive.service.BookService;
+import com.cvieira.libraryapi.reactive.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebFluxTest(controllers = LoanController.class)
+public class LoanControllerTest {
+
+    private static String LOAN_API = "/api/loans";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    BookService bookService;
+
+    @Test
+    @DisplayName("Deve retornar um livro")
+    public void returnBook() {
+        Loan loan = Loan.builder().id(1l).bookId(1l).build();
+        BDDMockito.given(loanService.getById(1l)).willReturn(Mono.just(loan));
+        BDDMockito.given(loanService.update(loan)).willReturn(Mono.just(loan));
+
+        webTestClient.patch().uri(LOAN_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ReturnedLoadDTO.builder().returned(true).build())
+                .exchange()
+                .expectStatus().isOk();
+
+        Mockito.verify(loanService, Mockito.times(1)).update(Mockito.argThat(Loan::isReturned));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de negócio quando a situação da devolução não for informada")
+    public void returnBookWithoutReturned() {
+        webTestClient.patch().uri(LOAN_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Informe se o empréstimo foi devolvido");
+
+        Mockito.verify(loanService, Mockito.never()).update(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 ao devolver um empréstimo inexistente")
+    public void returnInexistentLoan() {
+        BDDMockito.given(loanService.getById(Mockito.anyLong())).willReturn(Mono.empty());
+
+        webTestClient.patch().uri(LOAN_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ReturnedLoadDTO.builder().returned(true).build())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,144 @@
+package com.cvieira.libraryapi.reactive.service;
+
+import com.cvieira.libraryapi.reactive.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.reactive.exception.BusinessException;
+import com.cvieira.libraryapi.reactive.model.entity.Book;
+import com.cvieira.libraryapi.reactive.model.entity.Loan;
+import com.cvieira.libraryapi.reactive.model.repository.BookRepository;
+import com.cvieira.libraryapi.reactive.model.repository.LoanRepository;
+import com.cvieira.libraryapi.reactive.model.repository.LoanStatus;
+import com.cvieira.libraryapi.reactive.service.impl.LoanServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanServiceTest {
+
+    private LoanService loanService;
+
+    @MockBean
+    private LoanRepository repository;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    public void setUp() {
+        loanService = new LoanServiceImpl(repository, bookRepository);
+    }
+
+    @Test
+    @DisplayName("Deve salvar um emprestimo")
+    public void saveLoan() {
+        Loan savingLoan = createLoan();
+        Loan savedLoan = createLoan();
+        savedLoan.setId(1l);
+        Mockito.when(repository.existsByBookIdAndNotReturned(1l)).thenReturn(Mono.just(false));
+        Mockito.when(repository.save(savingLoan)).thenReturn(Mono.just(savedLoan));
+
+        StepVerifier.create(loanService.save(savingLoan))
+                .assertNext(loan -> {
+                    Assertions.assertEquals(1l, loan.getId());
+                    Assertions.assertEquals(1l, loan.getBookId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao salvar um emprestimo com livro já emprestado")
+    public void loanedBookSave() {
+        Loan savingLoan = createLoan();
+        Mockito.when(repository.existsByBookIdAndNotReturned(1l)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(loanService.save(savingLoan))
+                .expectError(BusinessException.class)
+                .verify();
+
+        Mockito.verify(repository, Mockito.never()).save(savingLoan);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio quando outro empréstimo do mesmo livro for salvo antes")
+    public void concurrentLoanedBookSave() {
+        Loan savingLoan = createLoan();
+        Mockito.when(repository.existsByBookIdAndNotReturned(1l)).thenReturn(Mono.just(false));
+        Mockito.when(repository.save(savingLoan)).thenReturn(Mono.error(new DataIntegrityViolationException(
+                "Unique index or primary key violation: \"PUBLIC.UK_LOAN_ACTIVE_BOOK_INDEX_2 ON PUBLIC.LOAN(ACTIVE_BOOK_ID)\"")));
+
+        StepVerifier.create(loanService.save(savingLoan))
+                .expectErrorSatisfies(ex -> {
+                    Assertions.assertTrue(ex instanceof BusinessException);
+                    Assertions.assertEquals("Livro já emprestado", ex.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos carregando os livros em uma única consulta")
+    public void findLoans() {
+        Loan first = createLoan();
+        first.setId(1l);
+        Loan second = createLoan();
+        second.setId(2l);
+        Book book = Book.builder().id(1l).isbn("321").build();
+        Mockito.when(repository.findByBookIsbnOrCustomer("321", "fulano", 10, 0l)).thenReturn(Flux.just(first, second));
+        Mockito.when(repository.countByBookIsbnOrCustomer("321", "fulano")).thenReturn(Mono.just(2l));
+        Mockito.when(bookRepository.findAllById(Mockito.<Iterable<Long>>any())).thenReturn(Flux.just(book));
+
+        StepVerifier.create(loanService.find(new LoanFilterDTO("321", "fulano"), PageRequest.of(0, 10)))
+                .assertNext(page -> {
+                    Assertions.assertEquals(2, page.getTotalElements());
+                    Assertions.assertEquals(book, page.getContent().get(0).getBook());
+                    Assertions.assertEquals(book, page.getContent().get(1).getBook());
+                })
+                .verifyComplete();
+
+        Mockito.verify(bookRepository, Mockito.times(1)).findAllById(Mockito.<Iterable<Long>>any());
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote informando os não encontrados e já devolvidos")
+    public void returnAll() {
+        Mockito.when(repository.findStatusByIds(Arrays.asList(1l, 2l, 3l)))
+                .thenReturn(Flux.just(new LoanStatus(1l, 1l, "001", false), new LoanStatus(2l, 2l, "002", true)));
+        Mockito.when(repository.findActiveStatusByIsbns(Arrays.asList("004", "005")))
+                .thenReturn(Flux.just(new LoanStatus(4l, 4l, "004", false)));
+        Mockito.when(repository.markReturned(Arrays.asList(1l, 4l))).thenReturn(Mono.just(2));
+
+        StepVerifier.create(loanService.returnAll(Arrays.asList(1l, 2l, 3l), Arrays.asList("004", "005")))
+                .assertNext(result -> {
+                    Assertions.assertEquals(2, result.getReturned());
+                    Assertions.assertEquals(Arrays.asList(3l), result.getNotFound());
+                    Assertions.assertEquals(Arrays.asList(2l), result.getAlreadyReturned());
+                    Assertions.assertEquals(Arrays.asList("005"), result.getIsbnsNotLoaned());
+                })
+                .verifyComplete();
+    }
+
+    private Loan createLoan() {
+        Book book = Book.builder().id(1l).build();
+        // como o repositório devolve: o id do livro vem da coluna, o livro só é preenchido pelo serviço
+        return Loan.builder()
+                .bookId(book.getId())
+                .book(book)
+                .customer("fulano")
+                .loanDate(LocalDate.now())
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.config.H2ReplicaSync;
+import com.cvieira.libraryapi.config.ReadReplicaConfig;
+import com.cvieira.libraryapi.config.ReplicaLagMonitor;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import com.cvieira.libraryapi.service.impl.ActiveLoanIndex;
+import com.cvieira.libraryapi.service.impl.BookSearchIndex;
+import com.cvieira.libraryapi.service.impl.BookServiceImpl;
+import com.cvieira.libraryapi.service.impl.LoanServiceImpl;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Contexto enxuto (sem web, agendamentos ou email) com os serviços reais sobre um H2 em memória
+ * populado com {@code datasetSize} livros. Cada livro par tem um empréstimo em aberto.
+ * Com {@code spring.profiles.active=replica} as leituras vão para a réplica local.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan("com.cvieira.libraryapi.model.entity")
+@EnableJpaRepositories("com.cvieira.libraryapi.model.repository")
+@Import({BookServiceImpl.class, BookSearchIndex.class, LoanServiceImpl.class, ActiveLoanIndex.class,
+        ReadReplicaConfig.class})
+public class BenchmarkApplication {
+
+    public static final int CUSTOMERS = 100;
+    private static final String[] WORDS = {
+            "aventuras", "historia", "viagem", "misterio", "jardim", "cidade", "noite", "mar", "tempo", "guerra"};
+    private static final int SEED_BATCH = 1000;
+
+    public static ConfigurableApplicationContext start(int datasetSize, String... properties) {
+        List<String> defaults = new ArrayList<>();
+        defaults.add("spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        defaults.add("spring.jpa.hibernate.ddl-auto=create-drop");
+        defaults.add("spring.jpa.open-in-view=false");
+        defaults.add("spring.main.banner-mode=off");
+        defaults.add("logging.level.root=WARN");
+        for (String property : properties) {
+            defaults.add(property);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(defaults.toArray(new String[0]))
+                .run();
+
+        seed(context.getBean(BookRepository.class), context.getBean(LoanRepository.class), datasetSize);
+        context.getBean(ActiveLoanIndex.class).rebuild();
+        // com o profile replica a réplica recebe os dados antes da medição, já que aqui não há agendamentos
+        context.getBeanProvider(H2ReplicaSync.class).ifAvailable(H2ReplicaSync::sync);
+        context.getBeanProvider(ReplicaLagMonitor.class).ifAvailable(ReplicaLagMonitor::check);
+        return context;
+    }
+
+    public static String isbn(int i) {
+        return String.format("isbn-%09d", i);
+    }
+
+    public static String customer(int i) {
+        return "customer-" + (i % CUSTOMERS);
+    }
+
+    private static void seed(BookRepository bookRepository, LoanRepository loanRepository, int datasetSize) {
+        for (int from = 0; from < datasetSize; from += SEED_BATCH) {
+            int to = Math.min(from + SEED_BATCH, datasetSize);
+            List<Book> books = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                books.add(Book.builder()
+                        .isbn(isbn(i))
+                        .title(WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i)
+                        .author("Autor " + (i % 1000))
+                        .build());
+            }
+            books = bookRepository.saveAll(books);
+
+            List<Loan> loans = new ArrayList<>();
+            List<Long> loanedIds = new ArrayList<>();
+            for (int i = 0; i < books.size(); i += 2) {
+                loanedIds.add(books.get(i).getId());
+                loans.add(Loan.builder()
+                        .book(books.get(i))
+                        .customer(customer(from + i))
+                        .customerEmail(customer(from + i) + "@email.com")
+                        .loanDate(LocalDate.now().minusDays((from + i) % 10))
+                        .build());
+            }
+            loanRepository.saveAll(loans);
+            bookRepository.updateOnLoan(loanedIds, true);
+        }
+    }
+}
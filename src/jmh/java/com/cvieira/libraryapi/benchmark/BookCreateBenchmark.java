@@ -0,0 +1,68 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cadastros concorrentes por segundo: consulta do isbn seguida do insert contra o insert direto,
+ * que depende da constraint única para recusar isbns repetidos.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class BookCreateBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository repository;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(0);
+        bookService = context.getBean(BookService.class);
+        repository = context.getBean(BookRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book checkThenInsert() {
+        Book book = newBook();
+        return repository.existsByIsbn(book.getIsbn()) ? null : repository.save(book);
+    }
+
+    @Benchmark
+    public Book insertOnly() {
+        return bookService.save(newBook());
+    }
+
+    private Book newBook() {
+        long id = sequence.incrementAndGet();
+        return Book.builder().isbn("create-" + id).title("Livro " + id).author("Autor " + id).build();
+    }
+}
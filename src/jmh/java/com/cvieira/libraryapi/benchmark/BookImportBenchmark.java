@@ -0,0 +1,76 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.dto.BookImportResultDTO;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Livros inseridos por segundo: cadastro individual (POST /api/books) contra a importação em lote.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookImportBenchmark {
+
+    private static final int BOOKS_PER_INVOCATION = 1000;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(0);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKS_PER_INVOCATION)
+    public Book individualCreates() {
+        Book last = null;
+        for (int i = 0; i < BOOKS_PER_INVOCATION; i++) {
+            last = bookService.save(newBook());
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKS_PER_INVOCATION)
+    public List<BookImportResultDTO> batchImport() {
+        List<Book> books = new ArrayList<>(BOOKS_PER_INVOCATION);
+        for (int i = 0; i < BOOKS_PER_INVOCATION; i++) {
+            books.add(newBook());
+        }
+        return bookService.saveAll(books);
+    }
+
+    private Book newBook() {
+        long id = sequence++;
+        return Book.builder().isbn("import-" + id).title("Livro " + id).author("Autor " + id).build();
+    }
+}
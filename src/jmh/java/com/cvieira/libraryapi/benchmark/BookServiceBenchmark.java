@@ -0,0 +1,83 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.service.BookService;
+import com.cvieira.libraryapi.service.impl.BookSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+
+    @Param({"10000"})
+    public int datasetSize;
+
+    @Param({"false", "true"})
+    public boolean replica;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private PageRequest firstPage;
+
+    @Setup
+    public void setUp() {
+        context = replica
+                ? BenchmarkApplication.start(datasetSize, "spring.profiles.active=replica",
+                        "application.datasource.replica.max-lag-ms=" + Long.MAX_VALUE)
+                : BenchmarkApplication.start(datasetSize);
+        bookService = context.getBean(BookService.class);
+        context.getBean(BookSearchIndex.class).rebuild();
+        firstPage = PageRequest.of(0, 20);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> findByTitle() {
+        return bookService.find(Book.builder().title("VIAGEM").build(), firstPage);
+    }
+
+    @Benchmark
+    public Page<Book> findByTitleAndAuthor() {
+        return bookService.find(Book.builder().title("mar").author("autor 7").build(), firstPage);
+    }
+
+    @Benchmark
+    public List<Book> searchByTitle() {
+        return bookService.search("viagem", 20);
+    }
+
+    @Benchmark
+    public List<Book> searchByTitleAndAuthor() {
+        return bookService.search("mar autor 7", 20);
+    }
+
+    @Benchmark
+    public Page<Book> findWithoutMatches() {
+        return bookService.find(Book.builder().title("inexistente").build(), firstPage);
+    }
+}
@@ -0,0 +1,62 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanRepositoryBenchmark {
+
+    @Param({"10000"})
+    public int datasetSize;
+
+    @Param({"0", "10"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+    private LoanRepository loanRepository;
+    private PageRequest pageRequest;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(datasetSize);
+        loanRepository = context.getBean(LoanRepository.class);
+        pageRequest = PageRequest.of(page, 5);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Loan> findByCustomer() {
+        return loanRepository.findByBookIsbnOrCustomer(null, BenchmarkApplication.customer(42), pageRequest);
+    }
+
+    @Benchmark
+    public Page<Loan> findByIsbn() {
+        return loanRepository.findByBookIsbnOrCustomer(BenchmarkApplication.isbn(datasetSize / 2), null, pageRequest);
+    }
+}
@@ -0,0 +1,88 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.exception.BusinessException;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import com.cvieira.libraryapi.service.LoanService;
+import com.cvieira.libraryapi.service.impl.ActiveLoanIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Criação de empréstimos (verificação no índice de livros emprestados + insert). Os empréstimos são apagados
+ * a cada iteração, então cada invocação empresta um livro livre diferente enquanto houver livros;
+ * se a iteração esgotar o acervo, as invocações seguintes medem o caminho de rejeição.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanServiceBenchmark {
+
+    @Param({"10000"})
+    public int datasetSize;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private LoanRepository loanRepository;
+    private ActiveLoanIndex activeLoanIndex;
+    private List<Book> books;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(datasetSize);
+        loanService = context.getBean(LoanService.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        activeLoanIndex = context.getBean(ActiveLoanIndex.class);
+        books = context.getBean(BookRepository.class).findAll(Sort.by("id"));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearLoans() {
+        loanRepository.deleteAllInBatch();
+        activeLoanIndex.rebuild();
+        next = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Loan save() {
+        Book book = books.get(next++ % books.size());
+        try {
+            return loanService.save(Loan.builder()
+                    .book(book)
+                    .customer("Fulano")
+                    .customerEmail("fulano@email.com")
+                    .loanDate(LocalDate.now())
+                    .build());
+        } catch (BusinessException ex) {
+            return null;
+        }
+    }
+}
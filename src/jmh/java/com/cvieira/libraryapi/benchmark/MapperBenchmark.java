@@ -0,0 +1,86 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.dto.BookDTO;
+import com.cvieira.libraryapi.dto.LoanDTO;
+import com.cvieira.libraryapi.mapper.BookMapper;
+import com.cvieira.libraryapi.mapper.LoanMapper;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por entidade do mapeamento entity -> DTO usado nas listagens.
+ * Rodar com "-prof gc" para comparar também a taxa de alocação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private Book book;
+    private BookDTO bookDTO;
+    private Loan loan;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        book = Book.builder().id(1l).title("As aventuras").author("Fulano").isbn("123").build();
+        bookDTO = BookDTO.builder().title("As aventuras").author("Fulano").isbn("123").build();
+        loan = Loan.builder().id(1l).book(book).customer("Fulano").customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now()).build();
+
+        // aquece os type maps para medir apenas o caminho quente
+        modelMapper.map(book, BookDTO.class);
+        modelMapper.map(bookDTO, Book.class);
+        modelMapper.map(loan, LoanDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO modelMapperBookToDTO() {
+        return modelMapper.map(book, BookDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO bookMapperToDTO() {
+        return BookMapper.toDTO(book);
+    }
+
+    @Benchmark
+    public Book modelMapperDTOToBook() {
+        return modelMapper.map(bookDTO, Book.class);
+    }
+
+    @Benchmark
+    public Book bookMapperToEntity() {
+        return BookMapper.toEntity(bookDTO);
+    }
+
+    @Benchmark
+    public LoanDTO modelMapperLoanToDTO() {
+        LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+        loanDTO.setBook(modelMapper.map(loan.getBook(), BookDTO.class));
+        return loanDTO;
+    }
+
+    @Benchmark
+    public LoanDTO loanMapperToDTO() {
+        return LoanMapper.toDTO(loan);
+    }
+}
@@ -0,0 +1,117 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.dto.BookDTO;
+import com.cvieira.libraryapi.dto.LoanDTO;
+import com.cvieira.libraryapi.dto.PageDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialização de uma página de livros e de empréstimos no PageImpl do Spring Data e no PageDTO,
+ * com e sem o Afterburner. No setup imprime o tamanho de cada resposta, sem e com gzip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageSerializationBenchmark {
+
+    private static final long TOTAL = 100_000;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"false", "true"})
+    public boolean afterburner;
+
+    private ObjectMapper objectMapper;
+    private Page<BookDTO> bookPage;
+    private PageDTO<BookDTO> bookPageDTO;
+    private Page<LoanDTO> loanPage;
+    private PageDTO<LoanDTO> loanPageDTO;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (afterburner) {
+            builder.modulesToInstall(new AfterburnerModule());
+        }
+        objectMapper = builder.build();
+
+        List<BookDTO> books = new ArrayList<>(pageSize);
+        List<LoanDTO> loans = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            BookDTO book = new BookDTO((long) i, "As aventuras " + i, "Autor " + i, BenchmarkApplication.isbn(i), i % 2 != 0);
+            books.add(book);
+            loans.add(new LoanDTO((long) i, book.getIsbn(), BenchmarkApplication.customer(i),
+                    BenchmarkApplication.customer(i) + "@email.com", book));
+        }
+        PageRequest pageRequest = PageRequest.of(3, pageSize);
+        bookPage = new PageImpl<>(books, pageRequest, TOTAL);
+        bookPageDTO = PageDTO.of(books, bookPage, TOTAL);
+        loanPage = new PageImpl<>(loans, pageRequest, TOTAL);
+        loanPageDTO = PageDTO.of(loans, loanPage, TOTAL);
+
+        System.out.printf("%npageSize=%d bytes (gzip): books PageImpl %s, PageDTO %s; loans PageImpl %s, PageDTO %s%n",
+                pageSize, size(bookPage), size(bookPageDTO), size(loanPage), size(loanPageDTO));
+    }
+
+    @Benchmark
+    public byte[] serializeBookPageImpl() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookPage);
+    }
+
+    @Benchmark
+    public byte[] serializeBookPageDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookPageDTO);
+    }
+
+    @Benchmark
+    public byte[] serializeLoanPageImpl() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanPage);
+    }
+
+    @Benchmark
+    public byte[] serializeLoanPageDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanPageDTO);
+    }
+
+    private String size(Object page) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(page);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            return json.length + " (" + compressed.size() + ")";
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.cvieira.libraryapi.benchmark;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leituras dos livros que passam por fora do cache do serviço (repositório e Loan.book), com e sem
+ * o cache de segundo nível. Ao fim de cada iteração imprime os comandos SQL por operação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecondLevelCacheBenchmark {
+
+    @Param({"10000"})
+    public int datasetSize;
+
+    @Param({"false", "true"})
+    public boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private LoanRepository loanRepository;
+    private Statistics statistics;
+    private long[] bookIds;
+    private int next;
+    private long operations;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(datasetSize,
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                "spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache);
+        bookRepository = context.getBean(BookRepository.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        List<Book> books = bookRepository.findAll();
+        bookIds = new long[books.size()];
+        for (int i = 0; i < bookIds.length; i++) {
+            bookIds[i] = books.get(i).getId();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        operations = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportStatements(BenchmarkParams params) {
+        System.out.printf("%n%s secondLevelCache=%s: %.2f statements/op%n", params.getBenchmark(),
+                secondLevelCache, (double) statistics.getPrepareStatementCount() / Math.max(operations, 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Book> findBookById() {
+        operations++;
+        return bookRepository.findById(bookIds[nextIndex()]);
+    }
+
+    @Benchmark
+    public Optional<Book> findBookByIsbn() {
+        operations++;
+        return bookRepository.findByIsbn(BenchmarkApplication.isbn(nextIndex()));
+    }
+
+    @Benchmark
+    public boolean existsBookByIsbn() {
+        operations++;
+        return bookRepository.existsByIsbn(BenchmarkApplication.isbn(nextIndex()));
+    }
+
+    /**
+     * Os empréstimos com oito dias ou mais, cada um carregando o seu livro em um select separado.
+     */
+    @Benchmark
+    public List<Loan> findLateLoans() {
+        operations++;
+        return loanRepository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(8));
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % bookIds.length;
+        return next;
+    }
+}
@@ -0,0 +1,120 @@
+package com.cvieira.libraryapi.loadtest;
+
+import com.cvieira.libraryapi.loadtest.OperationStats.Outcome;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * Um cliente em laço fechado: sorteia a operação, executa e espera a resposta antes da próxima.
+ * As requisições feitas antes do fim do aquecimento não são registradas.
+ */
+class Client implements Callable<Map<Operation, OperationStats>> {
+
+    private final Workload workload;
+    private final HttpConnection connection;
+    private final Random random;
+    private final long measureStartNanos;
+    private final long endNanos;
+
+    Client(Workload workload, HttpConnection connection, long seed, long measureStartNanos, long endNanos) {
+        this.workload = workload;
+        this.connection = connection;
+        this.random = new Random(seed);
+        this.measureStartNanos = measureStartNanos;
+        this.endNanos = endNanos;
+    }
+
+    @Override
+    public Map<Operation, OperationStats> call() {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        try {
+            while (System.nanoTime() < endNanos) {
+                Operation operation = workload.next(random);
+                if (operation == Operation.RETURN_LOANS && workload.activeLoans.isEmpty()) {
+                    operation = Operation.CREATE_LOAN;
+                }
+                long start = System.nanoTime();
+                Outcome outcome = execute(operation);
+                long elapsed = System.nanoTime() - start;
+                if (start >= measureStartNanos) {
+                    stats.computeIfAbsent(operation, key -> new OperationStats()).record(elapsed, outcome);
+                }
+            }
+        } finally {
+            connection.close();
+        }
+        return stats;
+    }
+
+    private Outcome execute(Operation operation) {
+        try {
+            switch (operation) {
+                case CREATE_BOOK:
+                    return createBook();
+                case SEARCH_BOOKS:
+                    return searchBooks();
+                case CREATE_LOAN:
+                    return createLoan();
+                case RETURN_LOANS:
+                    return returnLoans();
+                default:
+                    return findLoans();
+            }
+        } catch (IOException | RuntimeException ex) {
+            return Outcome.ERROR;
+        }
+    }
+
+    private Outcome createBook() throws IOException {
+        int i = random.nextInt(workload.books);
+        String json = Workload.bookJson(Workload.title(i), Workload.author(i), workload.newIsbn());
+        return expect(connection.send("POST", "/api/books", json), 201);
+    }
+
+    private Outcome searchBooks() throws IOException {
+        String query = Workload.WORDS[random.nextInt(Workload.WORDS.length)];
+        if (random.nextBoolean()) {
+            query += "+" + Workload.WORDS[random.nextInt(Workload.WORDS.length)];
+        }
+        return expect(connection.send("GET", "/api/books/search?q=" + query + "&size=20", null), 200);
+    }
+
+    private Outcome createLoan() throws IOException {
+        int i = random.nextInt(workload.books);
+        HttpConnection.Response response = connection.send("POST", "/api/loans",
+                Workload.loanJson(workload.isbn(i), Workload.customer(i)));
+        if (response.status == 201) {
+            workload.activeLoans.add(Long.parseLong(response.body.trim()));
+            return Outcome.OK;
+        }
+        // livro já emprestado: resposta esperada quando dois clientes disputam o mesmo livro
+        return response.status == 400 ? Outcome.REJECTED : Outcome.ERROR;
+    }
+
+    private Outcome returnLoans() throws IOException {
+        List<Long> ids = new ArrayList<>(Workload.RETURN_BATCH);
+        Long id;
+        while (ids.size() < Workload.RETURN_BATCH && (id = workload.activeLoans.poll()) != null) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            return Outcome.REJECTED;
+        }
+        return expect(connection.send("PATCH", "/api/loans/returns", "{\"ids\":" + ids + "}"), 200);
+    }
+
+    private Outcome findLoans() throws IOException {
+        String customer = Workload.customer(random.nextInt(Workload.CUSTOMERS));
+        return expect(connection.send("GET", "/api/loans?customer=" + customer + "&page=0&size=20", null), 200);
+    }
+
+    private static Outcome expect(HttpConnection.Response response, int status) {
+        return response.status == status ? Outcome.OK : Outcome.ERROR;
+    }
+}
@@ -0,0 +1,161 @@
+package com.cvieira.libraryapi.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cliente HTTP/1.1 mínimo com uma conexão keep-alive por cliente.
+ * O HttpURLConnection do Java 8 não aceita PATCH, usado na devolução de empréstimos,
+ * e um cliente próprio evita medir o overhead de pool de conexões junto com a API.
+ */
+class HttpConnection implements Closeable {
+
+    private static final int TIMEOUT_MILLIS = 30000;
+
+    private final String host;
+    private final int port;
+
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    HttpConnection(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    Response send(String method, String path, String json) throws IOException {
+        if (socket == null) {
+            connect();
+        }
+        try {
+            return exchange(method, path, json);
+        } catch (IOException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // a conexão já está sendo descartada
+            }
+            socket = null;
+        }
+    }
+
+    private void connect() throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        socket.connect(new InetSocketAddress(host, port), TIMEOUT_MILLIS);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    private Response exchange(String method, String path, String json) throws IOException {
+        byte[] body = json != null ? json.getBytes(StandardCharsets.UTF_8) : null;
+        StringBuilder request = new StringBuilder()
+                .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(host).append(':').append(port).append("\r\n")
+                .append("Accept: application/json\r\n");
+        if (body != null) {
+            request.append("Content-Type: application/json\r\n")
+                    .append("Content-Length: ").append(body.length).append("\r\n");
+        }
+        request.append("\r\n");
+        out.write(request.toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (body != null) {
+            out.write(body);
+        }
+        out.flush();
+
+        String statusLine = readLine();
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean closeAfter = false;
+        String header;
+        while (!(header = readLine()).isEmpty()) {
+            int colon = header.indexOf(':');
+            String name = header.substring(0, colon).trim();
+            String value = header.substring(colon + 1).trim();
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+                chunked = value.toLowerCase().contains("chunked");
+            } else if ("Connection".equalsIgnoreCase(name)) {
+                closeAfter = "close".equalsIgnoreCase(value);
+            }
+        }
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        if (chunked) {
+            int size;
+            while ((size = Integer.parseInt(readLine().split(";")[0].trim(), 16)) > 0) {
+                readFully(content, size);
+                readLine();
+            }
+            while (!readLine().isEmpty()) {
+                // trailers
+            }
+        } else if (contentLength > 0) {
+            readFully(content, contentLength);
+        }
+
+        if (closeAfter) {
+            close();
+        }
+        return new Response(status, new String(content.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int read;
+        while ((read = in.read()) != '\n') {
+            if (read < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+            if (read != '\r') {
+                line.append((char) read);
+            }
+        }
+        return line.toString();
+    }
+
+    private void readFully(ByteArrayOutputStream content, long length) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+            content.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.cvieira.libraryapi.loadtest;
+
+import com.cvieira.libraryapi.LibraryApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de carga da API: sobe a aplicação numa porta local aleatória com um H2 novo (ou usa
+ * loadtest.baseUrl), semeia o acervo pela própria API e executa o mix de operações com
+ * vários clientes concorrentes pelo loopback.
+ *
+ * <pre>
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.args="-Dloadtest.clients=64 -Dloadtest.duration=120"
+ * </pre>
+ *
+ * Os clientes trabalham em laço fechado, então as latências não incluem o tempo que uma
+ * requisição teria esperado para ser enviada enquanto o servidor estava lento.
+ */
+public final class LoadTest {
+
+    private static final int SEED_BATCH = 1000;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        System.out.println("Load test: " + config);
+
+        ConfigurableApplicationContext context = null;
+        String host;
+        int port;
+        if (config.embedded()) {
+            context = startApplication();
+            host = "127.0.0.1";
+            port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        } else {
+            URL url = new URL(config.baseUrl);
+            host = url.getHost();
+            port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        }
+
+        try {
+            Workload workload = new Workload(Long.toString(System.currentTimeMillis(), 36), config.books, config.mix);
+            seed(workload, config, host, port);
+            Report report = run(workload, config, host, port);
+            report.write(new File(config.output));
+            report.print(System.out);
+            System.out.println("Results written to " + new File(config.output).getAbsolutePath());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "spring.boot.admin.client.enabled=false",
+                        "spring.mail.host=localhost",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private static void seed(Workload workload, LoadTestConfig config, String host, int port) throws Exception {
+        long start = System.currentTimeMillis();
+        try (HttpConnection connection = new HttpConnection(host, port)) {
+            for (int from = 0; from < config.books; from += SEED_BATCH) {
+                int to = Math.min(from + SEED_BATCH, config.books);
+                StringBuilder json = new StringBuilder("[");
+                for (int i = from; i < to; i++) {
+                    json.append(i > from ? "," : "")
+                            .append(Workload.bookJson(Workload.title(i), Workload.author(i), workload.isbn(i)));
+                }
+                json.append(']');
+                check(connection.send("POST", "/api/books/batch", json.toString()), 200);
+            }
+        }
+
+        // metade do acervo começa emprestada
+        ExecutorService executor = Executors.newFixedThreadPool(config.clients);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int client = 0; client < config.clients; client++) {
+            int first = client * 2;
+            futures.add(executor.submit(() -> {
+                try (HttpConnection connection = new HttpConnection(host, port)) {
+                    for (int i = first; i < config.books; i += config.clients * 2) {
+                        HttpConnection.Response response = connection.send("POST", "/api/loans",
+                                Workload.loanJson(workload.isbn(i), Workload.customer(i)));
+                        check(response, 201);
+                        workload.activeLoans.add(Long.parseLong(response.body.trim()));
+                    }
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.printf("Seeded %d books and %d loans in %d ms%n",
+                config.books, workload.activeLoans.size(), System.currentTimeMillis() - start);
+    }
+
+    private static Report run(Workload workload, LoadTestConfig config, String host, int port) throws Exception {
+        long now = System.nanoTime();
+        long measureStart = now + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(config.clients);
+        List<Future<Map<Operation, OperationStats>>> futures = new ArrayList<>();
+        for (int client = 0; client < config.clients; client++) {
+            futures.add(executor.submit(new Client(workload, new HttpConnection(host, port),
+                    config.seed + client, measureStart, end)));
+        }
+
+        Map<Operation, OperationStats> results = new EnumMap<>(Operation.class);
+        try {
+            for (Future<Map<Operation, OperationStats>> future : futures) {
+                future.get().forEach((operation, stats) ->
+                        results.computeIfAbsent(operation, key -> new OperationStats()).add(stats));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long endMillis = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - end);
+        long startMillis = endMillis - TimeUnit.SECONDS.toMillis(config.durationSeconds);
+        return new Report(config, results, startMillis, endMillis);
+    }
+
+    private static void check(HttpConnection.Response response, int status) throws IOException {
+        if (response.status != status) {
+            throw new IOException("Unexpected status " + response.status + " while seeding: " + response.body);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cvieira.libraryapi.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Parâmetros do teste de carga, lidos das propriedades de sistema loadtest.*.
+ */
+class LoadTestConfig {
+
+    static final String DEFAULT_MIX = "createBook=5,searchBooks=40,createLoan=15,returnLoans=15,findLoans=25";
+
+    final String baseUrl;
+    final int clients;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final int books;
+    final long seed;
+    final String output;
+    final Map<Operation, Integer> mix;
+
+    private LoadTestConfig(String baseUrl, int clients, int warmupSeconds, int durationSeconds, int books,
+                           long seed, String output, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.clients = clients;
+        this.warmupSeconds = warmupSeconds;
+        this.durationSeconds = durationSeconds;
+        this.books = books;
+        this.seed = seed;
+        this.output = output;
+        this.mix = mix;
+    }
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                System.getProperty("loadtest.baseUrl", ""),
+                Integer.getInteger("loadtest.clients", 32),
+                Integer.getInteger("loadtest.warmup", 10),
+                Integer.getInteger("loadtest.duration", 60),
+                Integer.getInteger("loadtest.books", 10000),
+                Long.getLong("loadtest.seed", 42l),
+                System.getProperty("loadtest.output", "target/loadtest"),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)));
+    }
+
+    boolean embedded() {
+        return baseUrl.isEmpty();
+    }
+
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.of(parts[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix must have at least one operation");
+        }
+        return mix;
+    }
+
+    @Override
+    public String toString() {
+        return "baseUrl=" + (embedded() ? "embedded" : baseUrl) + ", clients=" + clients
+                + ", warmup=" + warmupSeconds + "s, duration=" + durationSeconds + "s, books=" + books
+                + ", seed=" + seed + ", mix=" + mix;
+    }
+}
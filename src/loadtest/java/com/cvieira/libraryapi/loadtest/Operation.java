@@ -0,0 +1,25 @@
+package com.cvieira.libraryapi.loadtest;
+
+enum Operation {
+
+    CREATE_BOOK("createBook"),
+    SEARCH_BOOKS("searchBooks"),
+    CREATE_LOAN("createLoan"),
+    RETURN_LOANS("returnLoans"),
+    FIND_LOANS("findLoans");
+
+    final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    static Operation of(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+}
@@ -0,0 +1,39 @@
+package com.cvieira.libraryapi.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latências em microssegundos e contadores de uma operação. Cada cliente mantém as suas
+ * e elas são somadas no fim, sem contenção durante a medição.
+ */
+class OperationStats {
+
+    enum Outcome {
+        OK, REJECTED, ERROR
+    }
+
+    final Histogram histogram = new Histogram(3);
+    long errors;
+    long rejected;
+
+    void record(long elapsedNanos, Outcome outcome) {
+        histogram.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+        if (outcome == Outcome.ERROR) {
+            errors++;
+        } else if (outcome == Outcome.REJECTED) {
+            rejected++;
+        }
+    }
+
+    void add(OperationStats other) {
+        histogram.add(other.histogram);
+        errors += other.errors;
+        rejected += other.rejected;
+    }
+
+    long count() {
+        return histogram.getTotalCount();
+    }
+}
@@ -0,0 +1,150 @@
+package com.cvieira.libraryapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Grava o resultado em result.json, a distribuição de percentis de cada operação em .hgrm
+ * e os histogramas completos em histograms.hlog, que podem ser comparados entre execuções
+ * com as ferramentas do HdrHistogram.
+ */
+class Report {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final String TOTAL = "total";
+
+    private final LoadTestConfig config;
+    private final Map<Operation, OperationStats> results;
+    private final long startMillis;
+    private final long endMillis;
+
+    Report(LoadTestConfig config, Map<Operation, OperationStats> results, long startMillis, long endMillis) {
+        this.config = config;
+        this.results = results;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+    }
+
+    void write(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        OperationStats total = total();
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, OperationStats> entry : results.entrySet()) {
+            operations.put(entry.getKey().key, summary(entry.getValue()));
+            writePercentiles(new File(directory, entry.getKey().key + ".hgrm"), entry.getValue().histogram);
+        }
+        writePercentiles(new File(directory, TOTAL + ".hgrm"), total.histogram);
+        writeHistogramLog(new File(directory, "histograms.hlog"), total);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", configSummary());
+        report.put("durationSeconds", seconds());
+        report.put(TOTAL, summary(total));
+        report.put("operations", operations);
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(directory, "result.json"), report);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-12s %10s %10s %8s %10s %10s %10s %10s%n",
+                "operation", "count", "ops/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Operation, OperationStats> entry : results.entrySet()) {
+            printLine(out, entry.getKey().key, entry.getValue());
+        }
+        printLine(out, TOTAL, total());
+    }
+
+    private void printLine(PrintStream out, String name, OperationStats stats) {
+        Histogram histogram = stats.histogram;
+        out.printf("%-12s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                name, stats.count(), stats.count() / seconds(), stats.errors,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+    }
+
+    private OperationStats total() {
+        OperationStats total = new OperationStats();
+        results.values().forEach(total::add);
+        return total;
+    }
+
+    private Map<String, Object> summary(OperationStats stats) {
+        Histogram histogram = stats.histogram;
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("mean", histogram.getTotalCount() > 0 ? histogram.getMean() / MICROS_PER_MILLI : 0);
+        latency.put("p50", millis(histogram.getValueAtPercentile(50)));
+        latency.put("p90", millis(histogram.getValueAtPercentile(90)));
+        latency.put("p99", millis(histogram.getValueAtPercentile(99)));
+        latency.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+        latency.put("max", millis(histogram.getMaxValue()));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", stats.count());
+        summary.put("errors", stats.errors);
+        summary.put("rejected", stats.rejected);
+        summary.put("errorRate", stats.count() > 0 ? (double) stats.errors / stats.count() : 0);
+        summary.put("throughput", stats.count() / seconds());
+        summary.put("latencyMillis", latency);
+        return summary;
+    }
+
+    private Map<String, Object> configSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("baseUrl", config.embedded() ? "embedded" : config.baseUrl);
+        summary.put("clients", config.clients);
+        summary.put("warmupSeconds", config.warmupSeconds);
+        summary.put("durationSeconds", config.durationSeconds);
+        summary.put("books", config.books);
+        summary.put("seed", config.seed);
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        config.mix.forEach((operation, weight) -> mix.put(operation.key, weight));
+        summary.put("mix", mix);
+        return summary;
+    }
+
+    private void writePercentiles(File file, Histogram histogram) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file)) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    private void writeHistogramLog(File file, OperationStats total) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file)) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(startMillis);
+            writer.setBaseTime(startMillis);
+            writer.outputLegend();
+            for (Map.Entry<Operation, OperationStats> entry : results.entrySet()) {
+                writer.outputIntervalHistogram(tagged(entry.getValue().histogram, entry.getKey().key));
+            }
+            writer.outputIntervalHistogram(tagged(total.histogram, TOTAL));
+        }
+    }
+
+    private Histogram tagged(Histogram histogram, String tag) {
+        Histogram copy = histogram.copy();
+        copy.setTag(tag);
+        copy.setStartTimeStamp(startMillis);
+        copy.setEndTimeStamp(endMillis);
+        return copy;
+    }
+
+    private double seconds() {
+        return (endMillis - startMillis) / 1000.0;
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+}
@@ -0,0 +1,80 @@
+package com.cvieira.libraryapi.loadtest;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado compartilhado entre os clientes: o acervo semeado, os empréstimos ativos conhecidos
+ * e o sorteio das operações segundo o mix configurado.
+ */
+class Workload {
+
+    static final int CUSTOMERS = 100;
+    static final int RETURN_BATCH = 5;
+    static final String[] WORDS = {
+            "aventuras", "historia", "viagem", "misterio", "jardim", "cidade", "noite", "mar", "tempo", "guerra"};
+
+    final String runId;
+    final int books;
+    final Queue<Long> activeLoans = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong createdBooks = new AtomicLong();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    Workload(String runId, int books, Map<Operation, Integer> mix) {
+        this.runId = runId;
+        this.books = books;
+        this.operations = new Operation[mix.size()];
+        this.cumulativeWeights = new int[mix.size()];
+        int i = 0;
+        int total = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            total += entry.getValue();
+            operations[i] = entry.getKey();
+            cumulativeWeights[i] = total;
+            i++;
+        }
+    }
+
+    Operation next(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    String isbn(int i) {
+        return runId + "-" + i;
+    }
+
+    String newIsbn() {
+        return runId + "-n" + createdBooks.incrementAndGet();
+    }
+
+    static String title(int i) {
+        return WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+    }
+
+    static String author(int i) {
+        return "Autor " + (i % 1000);
+    }
+
+    static String customer(int i) {
+        return "customer-" + (i % CUSTOMERS);
+    }
+
+    static String bookJson(String title, String author, String isbn) {
+        return "{\"title\":\"" + title + "\",\"author\":\"" + author + "\",\"isbn\":\"" + isbn + "\"}";
+    }
+
+    static String loanJson(String isbn, String customer) {
+        return "{\"isbn\":\"" + isbn + "\",\"customer\":\"" + customer + "\"}";
+    }
+}
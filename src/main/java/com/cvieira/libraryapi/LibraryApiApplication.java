@@ -1,7 +1,6 @@
 package com.cvieira.libraryapi;
 
 import com.cvieira.libraryapi.service.EmailService;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -20,11 +19,6 @@ public class LibraryApiApplication {
 	@Autowired
 	private EmailService emailService;
 
-	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
-	}
-
 	@Bean
 	public CommandLineRunner runner() {
 		return args -> {
@@ -2,6 +2,10 @@ package com.cvieira.libraryapi.api;
 
 import com.cvieira.libraryapi.api.exception.ApiErrors;
 import com.cvieira.libraryapi.exception.BusinessException;
+import com.cvieira.libraryapi.exception.ConstraintViolations;
+import com.cvieira.libraryapi.model.entity.Book;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -28,6 +32,19 @@ public class ApplicationControllerAdvice {
         return new ApiErrors(ex);
     }
 
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        if(ConstraintViolations.isViolationOf(ex, Book.UK_ISBN)) {
+            return new ResponseEntity(new ApiErrors(new BusinessException("ISBN já cadastrado")), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity(new ApiErrors(new BusinessException("Violação de integridade dos dados")), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return new ResponseEntity(new ApiErrors(new BusinessException("Registro alterado por outra requisição")), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException ex) {
         return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
@@ -0,0 +1,47 @@
+package com.cvieira.libraryapi.api;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posição de leitura opaca para paginação por chave: a ordenação usada, o valor da chave de
+ * ordenação do último registro lido e o seu id (desempate).
+ */
+@Getter
+public class Cursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sort;
+    private final Long id;
+    private final String key;
+
+    public Cursor(String sort, Long id, String key) {
+        this.sort = sort;
+        this.id = id;
+        this.key = key;
+    }
+
+    public String encode() {
+        String raw = sort + SEPARATOR + id + SEPARATOR + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            if (first < 0 || second < 0) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new Cursor(raw.substring(0, first), Long.valueOf(raw.substring(first + 1, second)), raw.substring(second + 1));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.cvieira.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replicação simples entre dois H2 para o profile replica. O esquema é copiado na primeira execução
+ * e, a cada ciclo, o conteúdo das tabelas da réplica é substituído por uma fotografia do primário em uma
+ * única transação, de forma que as leituras concorrentes na réplica vejam sempre uma cópia inteira.
+ */
+@Slf4j
+public class H2ReplicaSync {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private boolean schemaCopied;
+
+    public H2ReplicaSync(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    @Scheduled(fixedDelayString = "${application.datasource.replica.h2-sync-ms}",
+            initialDelayString = "${application.datasource.replica.h2-sync-ms}")
+    public synchronized void sync() {
+        long start = System.currentTimeMillis();
+        try (Connection source = primary.getConnection(); Connection target = replica.getConnection()) {
+            if (!schemaCopied) {
+                copySchema(source, target);
+                schemaCopied = true;
+            }
+
+            source.setAutoCommit(false);
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            target.setAutoCommit(false);
+            List<String> tables = tables(source);
+            try {
+                for (String table : tables) {
+                    copyTable(source, target, table);
+                }
+                target.commit();
+            } catch (SQLException ex) {
+                target.rollback();
+                throw ex;
+            } finally {
+                source.rollback();
+            }
+            log.debug("Replicated {} tables in {} ms", tables.size(), System.currentTimeMillis() - start);
+        } catch (SQLException ex) {
+            log.warn("Could not sync replica: {}", ex.getMessage());
+        }
+    }
+
+    private static void copySchema(Connection source, Connection target) throws SQLException {
+        try (Statement script = source.createStatement();
+             ResultSet statements = script.executeQuery("SCRIPT NODATA NOPASSWORDS NOSETTINGS DROP");
+             Statement ddl = target.createStatement()) {
+            while (statements.next()) {
+                String sql = statements.getString(1);
+                if (!sql.startsWith("CREATE USER")) {
+                    ddl.execute(sql);
+                }
+            }
+            // a cópia é sempre de uma fotografia consistente, então a ordem entre as tabelas não importa
+            ddl.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        }
+    }
+
+    private static List<String> tables(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (ResultSet result = connection.getMetaData().getTables(null, "PUBLIC", "%", new String[]{"TABLE"})) {
+            while (result.next()) {
+                tables.add(result.getString("TABLE_NAME"));
+            }
+        }
+        return tables;
+    }
+
+    private static void copyTable(Connection source, Connection target, String table) throws SQLException {
+        String name = "\"" + table + "\"";
+        try (Statement delete = target.createStatement()) {
+            delete.executeUpdate("DELETE FROM " + name);
+        }
+
+        try (Statement select = source.createStatement();
+             ResultSet rows = select.executeQuery("SELECT * FROM " + name)) {
+            int columns = rows.getMetaData().getColumnCount();
+            String insert = "INSERT INTO " + name + " VALUES (" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+            try (PreparedStatement statement = target.prepareStatement(insert)) {
+                int pending = 0;
+                while (rows.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        statement.setObject(i, rows.getObject(i));
+                    }
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.cvieira.libraryapi.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Troca a reflexão por acessores gerados em bytecode na leitura e escrita dos DTOs.
+     * O Spring Boot registra o módulo no ObjectMapper usado pelos controllers.
+     */
+    @Bean
+    public Module afterburnerModule() {
+        return new AfterburnerModule();
+    }
+}
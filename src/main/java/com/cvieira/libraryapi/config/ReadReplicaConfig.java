@@ -0,0 +1,127 @@
+package com.cvieira.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dois pools, primário e réplica. Transações somente leitura usam a réplica enquanto o atraso dela
+ * estiver dentro do limite; o resto usa o primário. As métricas hikaricp.* de cada pool saem com a
+ * tag pool=primary ou pool=replica. As leituras da réplica não alimentam o cache de segundo nível.
+ */
+@Configuration
+@Profile("replica")
+public class ReadReplicaConfig {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("application.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${application.datasource.replica.url}") String url,
+                                              @Value("${application.datasource.replica.username:sa}") String username,
+                                              @Value("${application.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName(REPLICA);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                               @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${application.datasource.replica.max-lag-ms:5000}") long maxLagMillis,
+                                               @Value("${application.datasource.replica.lag-check-ms:1000}") long checkIntervalMillis,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, maxLagMillis, checkIntervalMillis, meterRegistry);
+    }
+
+    /**
+     * Substituto local da replicação do banco: só existe quando as duas bases são H2 na mesma JVM.
+     */
+    @Bean
+    @ConditionalOnProperty("application.datasource.replica.h2-sync-ms")
+    public H2ReplicaSync h2ReplicaSync(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                       @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new H2ReplicaSync(primaryDataSource, replicaDataSource);
+    }
+
+    /**
+     * O gerenciador de transações do Spring Boot, trocando apenas o dialeto: o da fábrica de entity managers
+     * é copiado em afterPropertiesSet, então o da réplica entra depois dele.
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager() {
+            @Override
+            public void afterPropertiesSet() {
+                super.afterPropertiesSet();
+                setJpaDialect(new ReplicaJpaDialect());
+            }
+        };
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    /**
+     * O proxy preguiçoso só obtém a conexão no primeiro comando, quando a transação já foi marcada
+     * como somente leitura, e é isso que permite ao roteamento escolher o pool certo.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Lazy @Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Lazy @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 @Lazy ReplicaLagMonitor replicaLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primaryDataSource);
+        targets.put(REPLICA, replicaDataSource);
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(replicaLagMonitor, meterRegistry);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        // com os padrões informados o proxy não abre uma conexão ao ser criado; os pools só são iniciados
+        // depois deste bean, quando o DataSourceInitializer do Spring Boot já consegue resolvê-lo
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(routingDataSource);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+}
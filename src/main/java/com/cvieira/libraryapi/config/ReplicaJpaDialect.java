@@ -0,0 +1,53 @@
+package com.cvieira.libraryapi.config;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+
+/**
+ * Transações somente leitura podem ler da réplica, que fica atrás do primário: nelas a sessão só lê do
+ * cache de segundo nível, sem gravar nele o que carregou, para que uma linha atrasada ou já removida
+ * não passe a ser servida às leituras do primário. Com o open-in-view a sessão sobrevive à transação,
+ * então o modo anterior é restaurado no fim dela.
+ */
+public class ReplicaJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previousCacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+        return new ReadOnlyTransactionData(transactionData, session, previousCacheMode);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData) {
+            ReadOnlyTransactionData readOnly = (ReadOnlyTransactionData) transactionData;
+            readOnly.session.setCacheMode(readOnly.previousCacheMode);
+            transactionData = readOnly.transactionData;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private static class ReadOnlyTransactionData {
+        private final Object transactionData;
+        private final Session session;
+        private final CacheMode previousCacheMode;
+
+        private ReadOnlyTransactionData(Object transactionData, Session session, CacheMode previousCacheMode) {
+            this.transactionData = transactionData;
+            this.session = session;
+            this.previousCacheMode = previousCacheMode;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.cvieira.libraryapi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o atraso da réplica por heartbeat: grava o horário atual no primário e lê da réplica o último
+ * horário replicado. Enquanto o atraso for desconhecido ou maior que o limite a réplica fica indisponível
+ * e as leituras voltam para o primário. A medição roda em uma thread própria, fora do agendador compartilhado
+ * pelos outros jobs, e uma medição mais velha que o limite também deixa a réplica indisponível: uma medição
+ * travada não mantém a réplica em uso enquanto ela fica para trás.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final long UNKNOWN = -1;
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long checkIntervalMillis;
+    private long maxLagMillis;
+
+    private volatile long lagMillis = UNKNOWN;
+    private volatile long lastCheckMillis;
+    private volatile boolean available;
+
+    private ScheduledExecutorService executor;
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource,
+                             long maxLagMillis, long checkIntervalMillis, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.maxLagMillis = maxLagMillis;
+        this.checkIntervalMillis = checkIntervalMillis;
+
+        Gauge.builder("library.datasource.replica.lag", this, ReplicaLagMonitor::getLagMillis)
+                .baseUnit("milliseconds").register(meterRegistry);
+        Gauge.builder("library.datasource.replica.available", this, monitor -> monitor.isAvailable() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        primary.execute("create table if not exists replica_heartbeat (id int primary key, beat bigint not null)");
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("update replica_heartbeat set beat = ? where id = 1", now) == 0) {
+                primary.update("insert into replica_heartbeat (id, beat) values (1, ?)", now);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not write replica heartbeat: {}", ex.getMessage());
+        }
+
+        Long beat = null;
+        try {
+            beat = replica.queryForObject("select max(beat) from replica_heartbeat", Long.class);
+        } catch (DataAccessException ex) {
+            log.debug("Could not read replica heartbeat: {}", ex.getMessage());
+        }
+
+        if (beat != null) {
+            lastCheckMillis = now;
+        }
+        lagMillis = beat != null ? now - beat : UNKNOWN;
+        boolean nowAvailable = lagMillis != UNKNOWN && lagMillis <= maxLagMillis;
+        if (nowAvailable != available) {
+            log.warn("Replica is {} (lag {} ms)", nowAvailable ? "available" : "unavailable, reading from primary", lagMillis);
+        }
+        available = nowAvailable;
+    }
+
+    public boolean isAvailable() {
+        return available && System.currentTimeMillis() - lastCheckMillis <= maxLagMillis;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
@@ -0,0 +1,42 @@
+package com.cvieira.libraryapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Escolhe o pool a cada conexão obtida: réplica para transações somente leitura, primário para o resto
+ * e também para as leituras enquanto a réplica estiver atrasada ou fora do ar.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter fallbacks;
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.primaryRoutes = Counter.builder("library.datasource.route")
+                .tag("target", ReadReplicaConfig.PRIMARY).register(meterRegistry);
+        this.replicaRoutes = Counter.builder("library.datasource.route")
+                .tag("target", ReadReplicaConfig.REPLICA).register(meterRegistry);
+        this.fallbacks = Counter.builder("library.datasource.replica.fallback").register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryRoutes.increment();
+            return ReadReplicaConfig.PRIMARY;
+        }
+        if (!replicaLagMonitor.isAvailable()) {
+            fallbacks.increment();
+            primaryRoutes.increment();
+            return ReadReplicaConfig.PRIMARY;
+        }
+        replicaRoutes.increment();
+        return ReadReplicaConfig.REPLICA;
+    }
+}
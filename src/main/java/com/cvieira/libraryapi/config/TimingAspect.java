@@ -0,0 +1,78 @@
+package com.cvieira.libraryapi.config;
+
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mede o tempo de cada camada com um timer por camada, identificado pela classe e pelo método.
+ * Os percentis e histogramas são configurados pelas propriedades management.metrics.distribution.*.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class TimingAspect {
+
+    public static final String CONTROLLER_TIMER = "library.controller";
+    public static final String SERVICE_TIMER = "library.service";
+    public static final String REPOSITORY_TIMER = "library.repository";
+
+    private final MeterRegistry meterRegistry;
+
+    @Pointcut("within(com.cvieira.libraryapi.resource.BookController) " +
+            "|| within(com.cvieira.libraryapi.resource.LoanController)")
+    public void controllers() {
+    }
+
+    @Pointcut("execution(* com.cvieira.libraryapi.service.BookService.*(..)) " +
+            "|| execution(* com.cvieira.libraryapi.service.LoanService.*(..))")
+    public void services() {
+    }
+
+    // casa pela classe que implementa o repositório, para incluir os métodos herdados do JpaRepository
+    @Pointcut("execution(* com.cvieira.libraryapi.model.repository.BookRepository+.*(..)) " +
+            "|| execution(* com.cvieira.libraryapi.model.repository.LoanRepository+.*(..))")
+    public void repositories() {
+    }
+
+    @Around("controllers() && execution(public * *(..))")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(CONTROLLER_TIMER, joinPoint, joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("services()")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint, joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("repositories()")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        // o tipo declarante dos métodos herdados é o JpaRepository, então a classe vem da interface do proxy
+        String repository = joinPoint.getThis() instanceof BookRepository
+                ? "BookRepository" : "LoanRepository";
+        return time(REPOSITORY_TIMER, joinPoint, repository);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint, String className) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("class", className)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.cvieira.libraryapi.dto;
+
+import com.cvieira.libraryapi.exception.BusinessException;
+
+/**
+ * Como o total de registros é calculado nas buscas paginadas.
+ * EXACT: count(*) a cada requisição. NONE: sem total, apenas se há próxima página.
+ * ESTIMATE: total em cache, atualizado em segundo plano.
+ */
+public enum CountMode {
+    EXACT, NONE, ESTIMATE;
+
+    public static CountMode of(String value) {
+        for (CountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new BusinessException("Modo de contagem inválido: " + value);
+    }
+}
@@ -0,0 +1,17 @@
+package com.cvieira.libraryapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnRequestDTO {
+    private List<Long> ids;
+    private List<String> isbns;
+}
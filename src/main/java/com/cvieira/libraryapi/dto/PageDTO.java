@@ -0,0 +1,28 @@
+package com.cvieira.libraryapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Resposta das listagens paginadas: o conteúdo, o número da próxima página (ausente na última)
+ * e o total, ausente quando a busca não conta os registros.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageDTO<T> {
+
+    private List<T> content;
+    private Integer next;
+    private Long total;
+
+    public static <T> PageDTO<T> of(List<T> content, Slice<?> slice, Long total) {
+        return new PageDTO<>(content, slice.hasNext() ? slice.getNumber() + 1 : null, total);
+    }
+}
@@ -0,0 +1,27 @@
+package com.cvieira.libraryapi.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    /**
+     * Verifica se a violação de integridade foi causada pela constraint informada.
+     * O nome reportado pelo banco pode vir qualificado (ex.: "PUBLIC.UK_BOOK_ISBN_INDEX_2 ON ..."),
+     * por isso a comparação é feita por conteúdo e sem diferenciar maiúsculas.
+     */
+    public static boolean isViolationOf(DataIntegrityViolationException ex, String constraintName) {
+        Throwable cause = ex.getCause();
+        while (cause != null) {
+            if (cause instanceof ConstraintViolationException) {
+                String violated = ((ConstraintViolationException) cause).getConstraintName();
+                return violated != null && violated.toUpperCase().contains(constraintName.toUpperCase());
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package com.cvieira.libraryapi.mapper;
+
+import com.cvieira.libraryapi.dto.BookDTO;
+import com.cvieira.libraryapi.model.entity.Book;
+
+public final class BookMapper {
+
+    private BookMapper() {
+    }
+
+    public static BookDTO toDTO(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getOnLoan() != null ? !book.getOnLoan() : null);
+    }
+
+    public static Book toEntity(BookDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        Book book = new Book();
+        book.setId(dto.getId());
+        book.setTitle(dto.getTitle());
+        book.setAuthor(dto.getAuthor());
+        book.setIsbn(dto.getIsbn());
+        book.setOnLoan(dto.getAvailable() != null ? !dto.getAvailable() : null);
+        return book;
+    }
+}
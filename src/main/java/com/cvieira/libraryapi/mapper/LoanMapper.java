@@ -0,0 +1,24 @@
+package com.cvieira.libraryapi.mapper;
+
+import com.cvieira.libraryapi.dto.BookDTO;
+import com.cvieira.libraryapi.dto.LoanDTO;
+import com.cvieira.libraryapi.model.entity.Loan;
+
+public final class LoanMapper {
+
+    private LoanMapper() {
+    }
+
+    public static LoanDTO toDTO(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        BookDTO book = BookMapper.toDTO(loan.getBook());
+        return new LoanDTO(
+                loan.getId(),
+                book != null ? book.getIsbn() : null,
+                loan.getCustomer(),
+                loan.getCustomerEmail(),
+                book);
+    }
+}
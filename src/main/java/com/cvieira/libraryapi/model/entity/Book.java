@@ -3,7 +3,11 @@ package com.cvieira.libraryapi.model.entity;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.List;
@@ -13,11 +17,22 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
+@Table(uniqueConstraints = @UniqueConstraint(name = Book.UK_ISBN, columnNames = "isbn"),
+        indexes = {
+                @Index(name = "idx_book_title_id", columnList = "title, id"),
+                @Index(name = "idx_book_on_loan_id", columnList = "on_loan, id")
+        })
 public class Book {
+
+    public static final String UK_ISBN = "uk_book_isbn";
+    public static final String CACHE_REGION = "book";
+
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_sequence")
+    @SequenceGenerator(name = "book_sequence", sequenceName = "book_sequence", allocationSize = 50)
     private Long id;
 
     @Column
@@ -29,8 +44,29 @@ public class Book {
     @Column
     private String isbn;
 
+    /**
+     * Versão para controle otimista e ETag. Objeto, e não primitivo, para que filtros por exemplo
+     * montados a partir da requisição não comparem a versão.
+     */
+    @Version
+    @Column
+    private Long version;
+
+    /**
+     * Se o livro tem um empréstimo em aberto. Alterado na mesma transação que cria ou devolve o
+     * empréstimo, para que listagens e filtros de disponibilidade não precisem consultar os empréstimos.
+     */
+    @Column(name = "on_loan", nullable = false)
+    private Boolean onLoan;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "book", fetch = FetchType.LAZY)
     List<Loan> loans;
 
+    @PrePersist
+    void initOnLoan() {
+        onLoan = false;
+    }
 
 }
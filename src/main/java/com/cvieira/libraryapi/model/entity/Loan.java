@@ -13,8 +13,15 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Loan.UK_ACTIVE_BOOK, columnNames = "active_book_id"),
+        indexes = {
+                @Index(name = "idx_loan_customer_id", columnList = "customer, id"),
+                @Index(name = "idx_loan_return_date", columnList = "return_date")
+        })
 public class Loan {
 
+    public static final String UK_ACTIVE_BOOK = "uk_loan_active_book";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -35,4 +42,25 @@ public class Loan {
     @Column
     private boolean returned;
 
+    @Column(name = "return_date")
+    private LocalDate returnDate;
+
+    /**
+     * Id do livro enquanto o empréstimo está em aberto e nulo depois da devolução.
+     * A constraint única sobre esta coluna impede na base dois empréstimos abertos do mesmo livro.
+     */
+    @Column(name = "active_book_id")
+    private Long activeBookId;
+
+    @PrePersist
+    @PreUpdate
+    void updateReturnState() {
+        activeBookId = returned || book == null ? null : book.getId();
+        if (!returned) {
+            returnDate = null;
+        } else if (returnDate == null) {
+            returnDate = LocalDate.now();
+        }
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.cvieira.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Empréstimo devolvido há mais tempo que o período de retenção, movido para fora da tabela de empréstimos
+ * para que as consultas dos empréstimos em aberto não cresçam com o histórico. Mantém o id do empréstimo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "loan_archive", indexes = @Index(name = "idx_loan_archive_book_id", columnList = "id_book, id"))
+public class LoanArchive {
+
+    @Id
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Column(name = "id_book")
+    private Long bookId;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column(name = "return_date")
+    private LocalDate returnDate;
+
+}
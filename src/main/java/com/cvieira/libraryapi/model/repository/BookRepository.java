@@ -1,13 +1,56 @@
 package com.cvieira.libraryapi.model.repository;
 
 import com.cvieira.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     boolean existsByIsbn(String isbn);
 
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     Optional<Book> findByIsbn(String isbn);
 
+    @Query(value = "select b.version from Book as b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Atualização em massa, para cargas de dados: o Hibernate descarta toda a região de livros do cache
+     * de segundo nível e as consultas em cache sobre livros. Empréstimos alteram a entidade gerenciada.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "update Book as b set b.onLoan = :onLoan, b.version = b.version + 1 " +
+            "where b.id in :ids and b.onLoan <> :onLoan")
+    int updateOnLoan(@Param("ids") Collection<Long> ids, @Param("onLoan") boolean onLoan);
+
+    @Query(value = "select b.isbn from Book as b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query(value = "select b from Book as b order by b.id")
+    Stream<Book> streamAll();
+
+    @Query(value = "select b from Book as b where b.id > :id order by b.id")
+    List<Book> findAfterId(@Param("id") Long id, Pageable pageable);
+
+    @Query(value = "select b from Book as b where b.title > :title or (b.title = :title and b.id > :id) " +
+            "order by b.title, b.id")
+    List<Book> findAfterTitle(@Param("title") String title, @Param("id") Long id, Pageable pageable);
+
 }
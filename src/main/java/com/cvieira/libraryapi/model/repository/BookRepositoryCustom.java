@@ -0,0 +1,11 @@
+package com.cvieira.libraryapi.model.repository;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface BookRepositoryCustom {
+
+    Slice<Book> findSlice(Example<Book> example, Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.cvieira.libraryapi.model.repository;
+
+import com.cvieira.libraryapi.model.entity.LoanArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LoanArchiveRepository extends JpaRepository<LoanArchive, Long>, LoanArchiveRepositoryCustom {
+
+    @Modifying
+    @Query(value = "insert into LoanArchive (id, customer, customerEmail, bookId, loanDate, returnDate) " +
+            "select l.id, l.customer, l.customerEmail, l.book.id, l.loanDate, l.returnDate " +
+            "from Loan as l where l.id in :ids and l.returned = true")
+    int copyReturned(@Param("ids") Collection<Long> ids);
+
+    long countByBookId(Long bookId);
+
+    @Query(value = "select a.id from LoanArchive as a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+}
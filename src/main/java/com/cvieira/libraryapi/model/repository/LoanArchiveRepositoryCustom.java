@@ -0,0 +1,14 @@
+package com.cvieira.libraryapi.model.repository;
+
+import com.cvieira.libraryapi.model.entity.LoanArchive;
+
+import java.util.List;
+
+public interface LoanArchiveRepositoryCustom {
+
+    /**
+     * Empréstimos arquivados do livro, do mais recente para o mais antigo, a partir de um deslocamento
+     * que não precisa ser múltiplo do tamanho da página.
+     */
+    List<LoanArchive> findByBookId(Long bookId, long offset, int limit);
+}
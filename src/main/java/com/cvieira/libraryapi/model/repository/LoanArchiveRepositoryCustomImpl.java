@@ -0,0 +1,23 @@
+package com.cvieira.libraryapi.model.repository;
+
+import com.cvieira.libraryapi.model.entity.LoanArchive;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class LoanArchiveRepositoryCustomImpl implements LoanArchiveRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<LoanArchive> findByBookId(Long bookId, long offset, int limit) {
+        return entityManager
+                .createQuery("select a from LoanArchive as a where a.bookId = :bookId order by a.id desc", LoanArchive.class)
+                .setParameter("bookId", bookId)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -5,11 +5,17 @@ import com.cvieira.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
@@ -18,14 +24,75 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
             " from Loan l where l.book = :book and (l.returned is null or l.returned is false)")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
+    @Query(value = "select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer = :customer",
+            countQuery = "select count(l.id) from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
     Page<Loan> findByBookIsbnOrCustomer(
                 @Param("isbn") String isbn,
                 @Param("customer") String customer, Pageable any);
 
+    @Query(value = "select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer = :customer")
+    Slice<Loan> findSliceByBookIsbnOrCustomer(
+                @Param("isbn") String isbn,
+                @Param("customer") String customer, Pageable pageable);
+
+    @Query(value = "select count(l.id) from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
+    long countByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer);
+
+    @Query(value = "select l from Loan as l join fetch l.book as b " +
+            "where (b.isbn = :isbn or l.customer = :customer) and l.id > :id order by l.id")
+    List<Loan> findByBookIsbnOrCustomerAfter(
+                @Param("isbn") String isbn,
+                @Param("customer") String customer,
+                @Param("id") Long id, Pageable pageable);
+
+    @Query(value = "select l.book.id from Loan as l where l.returned is null or l.returned is false")
+    List<Long> findActiveBookIds();
+
+    /**
+     * Bloqueia os empréstimos lidos até o fim da transação: a situação lida continua valendo na devolução,
+     * sem que outra transação devolva o empréstimo e empreste o livro de novo nesse intervalo.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select l.id as id, b.id as bookId, b.isbn as isbn, l.returned as returned " +
+            "from Loan as l join l.book as b where l.id in :ids")
+    List<LoanStatus> findStatusByIds(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select l.id as id, b.id as bookId, b.isbn as isbn, l.returned as returned " +
+            "from Loan as l join l.book as b where b.isbn in :isbns and (l.returned is null or l.returned is false)")
+    List<LoanStatus> findActiveStatusByIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "update Loan as l set l.returned = true, l.activeBookId = null, l.returnDate = current_date " +
+            "where l.id in :ids and (l.returned is null or l.returned is false)")
+    int markReturned(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "update Loan as l set l.returned = false, l.activeBookId = :bookId, l.returnDate = null " +
+            "where l.id = :id and l.book.id = :bookId and l.returned = true")
+    int reopen(@Param("id") Long id, @Param("bookId") Long bookId);
+
+    @EntityGraph(attributePaths = "book")
     Page<Loan> findByBook(Book book, Pageable pageable);
 
+    /**
+     * Bloqueia as linhas lidas (select ... for update) para que nenhuma seja reaberta antes de arquivada.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select l.id from Loan as l where l.returned = true and l.returnDate < :returnedBefore order by l.returnDate")
+    List<Long> findArchivableIds(@Param("returnedBefore") LocalDate returnedBefore, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from Loan as l where l.id in :ids and l.returned = true")
+    int deleteReturned(@Param("ids") Collection<Long> ids);
+
     @Query(value = "select l from Loan as l where l.loanDate <= :threeDaysAgo " +
             "and (l.returned is null or l.returned is false)")
     List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+
+    @Query(value = "select l from Loan as l left join fetch l.book where l.loanDate <= :threeDaysAgo " +
+            "and (l.returned is null or l.returned is false) and l.id > :lastId order by l.id")
+    List<Loan> findLateLoansAfter(
+                @Param("threeDaysAgo") LocalDate threeDaysAgo,
+                @Param("lastId") Long lastId, Pageable pageable);
 }
@@ -0,0 +1,15 @@
+package com.cvieira.libraryapi.model.repository;
+
+/**
+ * Projeção com o mínimo necessário para decidir a devolução de um empréstimo.
+ */
+public interface LoanStatus {
+
+    Long getId();
+
+    Long getBookId();
+
+    String getIsbn();
+
+    Boolean getReturned();
+}
@@ -1,27 +1,50 @@
 package com.cvieira.libraryapi.resource;
 
+import com.cvieira.libraryapi.api.Cursor;
 import com.cvieira.libraryapi.dto.BookDTO;
+import com.cvieira.libraryapi.dto.BookImportResultDTO;
+import com.cvieira.libraryapi.dto.CountMode;
+import com.cvieira.libraryapi.dto.CursorPageDTO;
 import com.cvieira.libraryapi.dto.LoanDTO;
+import com.cvieira.libraryapi.dto.PageDTO;
+import com.cvieira.libraryapi.exception.BusinessException;
+import com.cvieira.libraryapi.mapper.BookMapper;
+import com.cvieira.libraryapi.mapper.LoanMapper;
 import com.cvieira.libraryapi.model.entity.Book;
 import com.cvieira.libraryapi.model.entity.Loan;
 import com.cvieira.libraryapi.service.BookService;
 import com.cvieira.libraryapi.service.LoanService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -31,9 +54,18 @@ import java.util.stream.Collectors;
 @Slf4j //adiciona logs
 public class BookController {
 
+    private static final String SORT_ID = "id";
+    private static final String SORT_TITLE = "title";
+    private static final int MAX_SCROLL_SIZE = 1000;
+    private static final int MAX_IMPORT_SIZE = 10000;
+    private static final String FORMAT_NDJSON = "ndjson";
+    private static final String FORMAT_CSV = "csv";
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
     private final BookService bookService;
-    private final ModelMapper modelMapper;
     private final LoanService loanService;
+    private final ObjectMapper objectMapper;
 
 
     @PostMapping
@@ -41,20 +73,45 @@ public class BookController {
     @ApiOperation("Creates a book")
     public BookDTO create(@RequestBody @Valid BookDTO dto) {
         log.info("creating  a book for isbn: {}", dto.getIsbn());
-        Book entity = modelMapper.map(dto, Book.class);
+        Book entity = BookMapper.toEntity(dto);
 
         entity = bookService.save(entity);
 
-        return modelMapper.map(entity, BookDTO.class);
+        return BookMapper.toDTO(entity);
+    }
+
+    @PostMapping("batch")
+    @ApiOperation("Creates books in bulk, reporting the result of each one")
+    public List<BookImportResultDTO> createAll(@RequestBody List<BookDTO> dtos) {
+        log.info("importing {} books", dtos.size());
+        if(dtos.size() > MAX_IMPORT_SIZE) {
+            throw new BusinessException("Máximo de " + MAX_IMPORT_SIZE + " livros por importação");
+        }
+        List<Book> books = dtos.stream()
+                .map(BookMapper::toEntity)
+                .collect(Collectors.toList());
+
+        return bookService.saveAll(books);
     }
 
     @GetMapping("{id}")
     @ApiOperation("Obtains a book details by id")
-    public BookDTO get(@PathVariable Long id) {
+    @ApiResponses({
+            @ApiResponse(code = 304, message = "Book not modified since the version in If-None-Match")
+    })
+    public ResponseEntity<BookDTO> get(@PathVariable Long id, WebRequest request) {
         log.info("Obtaining details for a book id {}", id);
+        if(request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            // responde pela versão, sem carregar nem serializar o livro
+            String eTag = eTag(bookService.getVersion(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+            if(request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
         return bookService
                 .getById(id)
-                .map( book -> modelMapper.map(book, BookDTO.class))
+                .map(book -> ResponseEntity.ok().eTag(eTag(book.getVersion())).body(BookMapper.toDTO(book)))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
@@ -72,51 +129,175 @@ public class BookController {
 
     @PutMapping("{id}")
     @ApiOperation("Updates a book by id")
-    public BookDTO update(@PathVariable Long id, @RequestBody @Valid BookDTO bookDTO) {
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, @RequestBody @Valid BookDTO bookDTO) {
         log.info("Update book for id {}", id);
         return bookService.getById(id).map(book -> {
             book.setAuthor(bookDTO.getAuthor());
             book.setTitle(bookDTO.getTitle());
             book = bookService.update(book);
 
-            return modelMapper.map(book, BookDTO.class);
+            return ResponseEntity.ok().eTag(eTag(book.getVersion())).body(BookMapper.toDTO(book));
         }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping
     @ApiOperation("Find books by params")
-    public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
-        Book filter = modelMapper.map(dto, Book.class);
+    public PageDTO<BookDTO> find(BookDTO dto, Pageable pageRequest,
+                                 @RequestParam(value = "count", defaultValue = "exact") String count) {
+        Book filter = BookMapper.toEntity(dto);
+        CountMode countMode = CountMode.of(count);
 
-        Page<Book> result = bookService.find(filter, pageRequest);
+        Slice<Book> result = countMode == CountMode.EXACT
+                ? bookService.find(filter, pageRequest)
+                : bookService.findSlice(filter, pageRequest);
 
         List<BookDTO> list =  result.getContent()
                 .stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(BookMapper::toDTO)
                 .collect(Collectors.toList());
 
-        return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
+        switch (countMode) {
+            case EXACT:
+                return PageDTO.of(list, result, ((Page<Book>) result).getTotalElements());
+            case ESTIMATE:
+                return PageDTO.of(list, result, bookService.estimateCount(filter));
+            default:
+                return PageDTO.of(list, result, null);
+        }
+    }
+
+    @GetMapping("search")
+    @ApiOperation("Full-text search over title, author and isbn, ordered by relevance")
+    public List<BookDTO> search(@RequestParam("q") String query,
+                                @RequestParam(value = "size", defaultValue = "20") int size) {
+        return bookService.search(query, Math.min(Math.max(size, 1), MAX_SCROLL_SIZE))
+                .stream()
+                .map(BookMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("scroll")
+    @ApiOperation("Find books by cursor, sorted by id or title")
+    public CursorPageDTO<BookDTO> scroll(@RequestParam(value = "after", required = false) String after,
+                                         @RequestParam(value = "sort", defaultValue = SORT_ID) String sort,
+                                         @RequestParam(value = "size", defaultValue = "20") int size) {
+        Cursor cursor = after != null ? Cursor.decode(after) : new Cursor(sort, 0l, "");
+        int limit = Math.min(Math.max(size, 1), MAX_SCROLL_SIZE);
+
+        List<Book> books;
+        if(SORT_ID.equals(cursor.getSort())) {
+            books = bookService.findAfterId(cursor.getId(), limit + 1);
+        } else if(SORT_TITLE.equals(cursor.getSort())) {
+            books = bookService.findAfterTitle(cursor.getKey(), cursor.getId(), limit + 1);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort");
+        }
+
+        String next = null;
+        if(books.size() > limit) {
+            books = books.subList(0, limit);
+            Book last = books.get(limit - 1);
+            String key = SORT_TITLE.equals(cursor.getSort()) ? last.getTitle() : null;
+            next = new Cursor(cursor.getSort(), last.getId(), key).encode();
+        }
+
+        List<BookDTO> list = books.stream()
+                .map(BookMapper::toDTO)
+                .collect(Collectors.toList());
+
+        return new CursorPageDTO<BookDTO>(list, next);
+    }
+
+    @GetMapping("availability")
+    @ApiOperation("Tells, for each book id, whether the book is available for loan")
+    public Map<Long, Boolean> availability(@RequestParam("ids") List<Long> ids) {
+        if(ids.size() > MAX_SCROLL_SIZE) {
+            throw new BusinessException("Máximo de " + MAX_SCROLL_SIZE + " livros por consulta");
+        }
+        return loanService.getAvailability(ids);
+    }
+
+    @GetMapping("export")
+    @ApiOperation("Streams the whole catalog as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = FORMAT_NDJSON) String format) {
+        boolean csv = FORMAT_CSV.equals(format);
+        if(!csv && !FORMAT_NDJSON.equals(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid format");
+        }
+        log.info("Exporting books as {}", format);
+
+        ObjectWriter jsonWriter = objectMapper.writerFor(BookDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if(csv) {
+                writer.write("id,title,author,isbn\n");
+            }
+            try {
+                bookService.exportAll(book -> {
+                    try {
+                        if(csv) {
+                            writeCsvLine(writer, book);
+                        } else {
+                            jsonWriter.writeValue(writer, BookMapper.toDTO(book));
+                            writer.write('\n');
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("{id}/loans")
     @ApiOperation("Find loans by book id")
-    public Page<LoanDTO> loandByBook(@PathVariable Long id, Pageable pageable) {
+    public PageDTO<LoanDTO> loandByBook(@PathVariable Long id, Pageable pageable) {
         Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
         Page<Loan> result = loanService.getLoansByBook(book, pageable);
 
         List<LoanDTO> list = result.getContent()
                     .stream()
-                    .map(loan -> {
-                        Book loanBook = loan.getBook();
-                        BookDTO bookDTO = modelMapper.map(loan, BookDTO.class);
-                        LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-                        loanDTO.setBook(bookDTO);
-                        return  loanDTO;
-                    }).collect(Collectors.toList());
-
-        return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
+                    .map(LoanMapper::toDTO)
+                    .collect(Collectors.toList());
+
+        return PageDTO.of(list, result, result.getTotalElements());
+    }
+
+    private static void writeCsvLine(Writer writer, Book book) throws IOException {
+        writer.write(String.valueOf(book.getId()));
+        writer.write(',');
+        writer.write(csvValue(book.getTitle()));
+        writer.write(',');
+        writer.write(csvValue(book.getAuthor()));
+        writer.write(',');
+        writer.write(csvValue(book.getIsbn()));
+        writer.write('\n');
     }
 
+    private static String csvValue(String value) {
+        if(value == null) {
+            return "";
+        }
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
 
 }
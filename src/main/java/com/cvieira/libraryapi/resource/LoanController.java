@@ -1,19 +1,25 @@
 package com.cvieira.libraryapi.resource;
 
-import com.cvieira.libraryapi.dto.BookDTO;
+import com.cvieira.libraryapi.api.Cursor;
+import com.cvieira.libraryapi.dto.CountMode;
+import com.cvieira.libraryapi.dto.CursorPageDTO;
 import com.cvieira.libraryapi.dto.LoanDTO;
 import com.cvieira.libraryapi.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.dto.LoanReturnRequestDTO;
+import com.cvieira.libraryapi.dto.LoanReturnResultDTO;
+import com.cvieira.libraryapi.dto.PageDTO;
 import com.cvieira.libraryapi.dto.ReturnedLoadDTO;
+import com.cvieira.libraryapi.exception.BusinessException;
+import com.cvieira.libraryapi.mapper.LoanMapper;
 import com.cvieira.libraryapi.model.entity.Book;
 import com.cvieira.libraryapi.model.entity.Loan;
 import com.cvieira.libraryapi.service.BookService;
 import com.cvieira.libraryapi.service.LoanService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -29,9 +35,11 @@ import java.util.stream.Collectors;
 public class LoanController {
 
 
+    private static final int MAX_SCROLL_SIZE = 1000;
+    private static final int MAX_RETURN_SIZE = 10000;
+
     private final LoanService loanService;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -52,24 +60,72 @@ public class LoanController {
     @PatchMapping("{id}")
     public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoadDTO dto) {
         Loan loan = loanService.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(dto.getReturned());
+        // com o open-in-view o empréstimo lido continua gerenciado: alterá-lo faria o Hibernate gravar a devolução
+        // antes da atualização condicional do serviço, que então não acharia mais o empréstimo aberto
+        Loan changed = Loan.builder()
+                            .id(loan.getId())
+                            .book(loan.getBook())
+                            .returned(dto.getReturned())
+                            .build();
+
+        loanService.update(changed);
+    }
 
-        loanService.update(loan);
+    @PatchMapping("returns")
+    public LoanReturnResultDTO returnAll(@RequestBody LoanReturnRequestDTO dto) {
+        int size = (dto.getIds() != null ? dto.getIds().size() : 0)
+                + (dto.getIsbns() != null ? dto.getIsbns().size() : 0);
+        if(size == 0) {
+            throw new BusinessException("Informe os ids ou isbns dos empréstimos");
+        }
+        if(size > MAX_RETURN_SIZE) {
+            throw new BusinessException("Máximo de " + MAX_RETURN_SIZE + " devoluções por requisição");
+        }
+        return loanService.returnAll(dto.getIds(), dto.getIsbns());
     }
 
     @GetMapping
-    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageable) {
-        Page<Loan> result = loanService.find(dto, pageable);
-        List<LoanDTO> list = result.getContent().stream().map(
-                entity -> {
-                    Book book = entity.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                })
+    public PageDTO<LoanDTO> find(LoanFilterDTO dto, Pageable pageable,
+                                 @RequestParam(value = "count", defaultValue = "exact") String count) {
+        CountMode countMode = CountMode.of(count);
+
+        Slice<Loan> result = countMode == CountMode.EXACT
+                ? loanService.find(dto, pageable)
+                : loanService.findSlice(dto, pageable);
+
+        List<LoanDTO> list = result.getContent().stream()
+            .map(LoanMapper::toDTO)
+            .collect(Collectors.toList());
+
+        switch (countMode) {
+            case EXACT:
+                return PageDTO.of(list, result, ((Page<Loan>) result).getTotalElements());
+            case ESTIMATE:
+                return PageDTO.of(list, result, loanService.estimateCount(dto));
+            default:
+                return PageDTO.of(list, result, null);
+        }
+    }
+
+    @GetMapping("scroll")
+    public CursorPageDTO<LoanDTO> scroll(LoanFilterDTO dto,
+                                         @RequestParam(value = "after", required = false) String after,
+                                         @RequestParam(value = "size", defaultValue = "20") int size) {
+        Cursor cursor = after != null ? Cursor.decode(after) : new Cursor("id", 0l, null);
+        int limit = Math.min(Math.max(size, 1), MAX_SCROLL_SIZE);
+
+        List<Loan> loans = loanService.findAfter(dto, cursor.getId(), limit + 1);
+
+        String next = null;
+        if(loans.size() > limit) {
+            loans = loans.subList(0, limit);
+            next = new Cursor("id", loans.get(limit - 1).getId(), null).encode();
+        }
+
+        List<LoanDTO> list = loans.stream()
+            .map(LoanMapper::toDTO)
             .collect(Collectors.toList());
 
-        return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
+        return new CursorPageDTO<LoanDTO>(list, next);
     }
 }
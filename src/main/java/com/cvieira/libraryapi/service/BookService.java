@@ -1,22 +1,56 @@
 package com.cvieira.libraryapi.service;
 
 
+import com.cvieira.libraryapi.dto.BookImportResultDTO;
 import com.cvieira.libraryapi.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     Book save(Book book);
 
+    List<BookImportResultDTO> saveAll(List<Book> books);
+
     Optional<Book> getById(Long id);
 
+    /**
+     * Versão atual do livro, sem carregar a entidade; usada para responder requisições condicionais.
+     */
+    Optional<Long> getVersion(Long id);
+
     void delete(Book book);
 
     Book update(Book book);
 
+    /**
+     * Marca o livro como emprestado ou disponível, participando da transação do empréstimo.
+     */
+    void updateOnLoan(Book book, boolean onLoan);
+
+    /**
+     * Mesmo que {@link #updateOnLoan(Book, boolean)} para vários livros de uma vez, como na devolução em lote.
+     */
+    void updateOnLoan(Collection<Long> bookIds, boolean onLoan);
+
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    Slice<Book> findSlice(Book filter, Pageable pageRequest);
+
+    long estimateCount(Book filter);
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    void exportAll(Consumer<Book> consumer);
+
+    List<Book> search(String query, int size);
+
+    List<Book> findAfterId(Long id, int size);
+
+    List<Book> findAfterTitle(String title, Long id, int size);
 }
@@ -5,5 +5,13 @@ import java.util.List;
 
 
 public interface EmailService {
-    void sendEmails(String message, List<String> emailList);
+
+    /**
+     * Enfileira as mensagens sem esperar pela entrega. Com a fila cheia espera por espaço, então quem
+     * envia muitos lotes acompanha o ritmo dos workers e nenhuma mensagem é descartada.
+     *
+     * @return os destinatários que ficaram de fora porque o envio foi interrompido ou o dispatcher parou,
+     * para que quem chamou possa tentar de novo; vazia quando todas foram enfileiradas
+     */
+    List<String> sendEmails(String message, List<String> emailList);
 }
@@ -1,24 +1,62 @@
 package com.cvieira.libraryapi.service;
 
 import com.cvieira.libraryapi.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.dto.LoanReturnResultDTO;
 import com.cvieira.libraryapi.model.entity.Book;
 import com.cvieira.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface LoanService {
     Loan save(Loan loan);
 
     Optional<Loan> getById(Long id);
 
+    /**
+     * Devolve ou reabre o empréstimo conforme {@link Loan#isReturned()}. Só altera o livro e o índice
+     * de empréstimos ativos quando a situação do empréstimo realmente muda. O empréstimo informado não deve ser
+     * a entidade gerenciada alterada: ela seria gravada antes da atualização condicional, que deixaria de valer.
+     */
     Loan update(Loan loan);
 
+    LoanReturnResultDTO returnAll(Collection<Long> ids, Collection<String> isbns);
+
     Page<Loan> find(LoanFilterDTO filter, Pageable pageable);
 
+    Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable);
+
+    long estimateCount(LoanFilterDTO filter);
+
+    List<Loan> findAfter(LoanFilterDTO filter, Long id, int size);
+
+    /**
+     * Empréstimos do livro: primeiro os da tabela de empréstimos, depois os arquivados,
+     * que só são consultados quando a página não é preenchida pelos primeiros.
+     * Sem ordenação informada as duas partes vêm do mais recente para o mais antigo (id decrescente);
+     * uma ordenação informada vale apenas para os empréstimos da tabela, e os arquivados continuam
+     * depois deles por id decrescente.
+     */
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
+    /**
+     * Move para o arquivo um lote de empréstimos devolvidos antes da data informada. O lote fica
+     * bloqueado até o fim da transação, então uma reabertura concorrente espera e não encontra mais o empréstimo.
+     *
+     * @return quantidade de empréstimos arquivados
+     */
+    int archiveReturned(LocalDate returnedBefore, int batchSize);
+
     List<Loan> getAllLateLoans();
+
+    Map<Long, Boolean> getAvailability(Collection<Long> bookIds);
+
+    void forEachLateLoansChunk(int chunkSize, Consumer<List<Loan>> action);
 }
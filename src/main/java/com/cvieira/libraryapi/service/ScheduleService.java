@@ -1,32 +1,40 @@
 package com.cvieira.libraryapi.service;
 
-import com.cvieira.libraryapi.model.entity.Loan;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
 
     private static final String CRON_LATE_LOAN = "0 0 0 1/1 * ?";
+    private static final int LATE_LOANS_CHUNK_SIZE = 500;
 
     private final LoanService loanService;
     private final EmailService emailService;
 
     @Scheduled(cron = CRON_LATE_LOAN)
     public void sendMailToLateLoans() {
-        List<Loan> list = loanService.getAllLateLoans();
-
-        List<String> emailList = list.stream().map(
-                loan -> loan.getCustomerEmail()
-        ).collect(Collectors.toList());
-
         String message = "Atenção! Você tem um empréstimo atrasado. Favor devolver o livro mais rápido possível.";
 
-        emailService.sendEmails(message, emailList);
+        loanService.forEachLateLoansChunk(LATE_LOANS_CHUNK_SIZE, loans -> {
+            List<String> emailList = loans.stream().map(
+                    loan -> loan.getCustomerEmail()
+            ).collect(Collectors.toList());
+
+            // espera pela fila a cada lote; só o desligamento da aplicação deixa avisos de fora, e como os
+            // empréstimos continuam atrasados eles saem na próxima execução
+            List<String> rejected = emailService.sendEmails(message, emailList);
+            if (!rejected.isEmpty()) {
+                log.warn("Mail dispatcher stopped before queueing late loan notices to {} customers, retrying on the next run",
+                        rejected.size());
+            }
+        });
     }
 }
@@ -0,0 +1,97 @@
+package com.cvieira.libraryapi.service.impl;
+
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids dos livros com empréstimo ativo, mantidos em memória para que a admissão de um empréstimo
+ * e a consulta de disponibilidade não precisem ir à base.
+ * Cada alteração recebe uma versão; a reconciliação periódica com a base só corrige entradas
+ * alteradas antes da reconciliação anterior. Um empréstimo ou devolução cuja transação ainda não foi
+ * confirmada na leitura da base tem assim um intervalo inteiro para aparecer nela antes de ser desfeito.
+ */
+@Slf4j
+@Component
+public class ActiveLoanIndex {
+
+    private final LoanRepository repository;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, Long> loaned = new ConcurrentHashMap<>();
+    private final Map<Long, Long> released = new ConcurrentHashMap<>();
+    private volatile long lastReconcile;
+
+    public ActiveLoanIndex(LoanRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Set<Long> bookIds = new HashSet<>(repository.findActiveBookIds());
+        long stamp = version.incrementAndGet();
+        loaned.keySet().retainAll(bookIds);
+        bookIds.forEach(bookId -> loaned.put(bookId, stamp));
+        released.clear();
+        lastReconcile = stamp;
+        log.info("Indexed {} active loans in {} ms", bookIds.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Marca o livro como emprestado.
+     *
+     * @return false se o livro já estava emprestado
+     */
+    public boolean tryAcquire(Long bookId) {
+        return loaned.putIfAbsent(bookId, version.incrementAndGet()) == null;
+    }
+
+    public void release(Long bookId) {
+        released.put(bookId, version.incrementAndGet());
+        loaned.remove(bookId);
+    }
+
+    public boolean isOnLoan(Long bookId) {
+        return loaned.containsKey(bookId);
+    }
+
+    public int size() {
+        return loaned.size();
+    }
+
+    @Scheduled(fixedDelayString = "${application.loans.active-index.reconcile-ms:60000}",
+            initialDelayString = "${application.loans.active-index.reconcile-ms:60000}")
+    public synchronized void reconcile() {
+        long previous = lastReconcile;
+        long snapshot = version.incrementAndGet();
+        Set<Long> bookIds = new HashSet<>(repository.findActiveBookIds());
+        int drift = 0;
+
+        for (Map.Entry<Long, Long> entry : loaned.entrySet()) {
+            if (entry.getValue() < previous && !bookIds.contains(entry.getKey())
+                    && loaned.remove(entry.getKey(), entry.getValue())) {
+                drift++;
+            }
+        }
+        for (Long bookId : bookIds) {
+            Long releasedAt = released.get(bookId);
+            if ((releasedAt == null || releasedAt < previous) && loaned.putIfAbsent(bookId, snapshot) == null) {
+                drift++;
+            }
+        }
+        released.values().removeIf(stamp -> stamp < previous);
+        lastReconcile = snapshot;
+
+        if (drift > 0) {
+            log.warn("Active loan index was out of sync with the database in {} books", drift);
+        }
+    }
+}
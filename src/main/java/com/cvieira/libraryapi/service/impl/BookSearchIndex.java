@@ -0,0 +1,321 @@
+package com.cvieira.libraryapi.service.impl;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas em memória sobre título, autor e isbn dos livros.
+ * Os trigramas de cada termo da busca reduzem os candidatos, que são confirmados por substring
+ * e ordenados por relevância. Termos com menos de três caracteres não têm trigramas: só filtram
+ * os candidatos dos demais termos, e uma busca apenas com eles não retorna nada em vez de
+ * percorrer o acervo inteiro. Cada lista invertida é um long[] ordenado, e a interseção parte
+ * da menor delas.
+ */
+@Slf4j
+@Component
+public class BookSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int REBUILD_BATCH = 1000;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+
+    private final BookRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Posting> postings = new HashMap<>();
+
+    public BookSearchIndex(BookRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        Long lastId = 0l;
+        List<Book> books;
+        do {
+            books = repository.findAfterId(lastId, PageRequest.of(0, REBUILD_BATCH));
+            for (Book book : books) {
+                index(book);
+                lastId = book.getId();
+            }
+            count += books.size();
+        } while (books.size() == REBUILD_BATCH);
+        log.info("Indexed {} books in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        Document document = new Document(book.getId(),
+                normalize(book.getTitle()), normalize(book.getAuthor()), normalize(book.getIsbn()));
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(book.getId());
+            documents.put(document.id, document);
+            for (String gram : grams(document.text())) {
+                postings.computeIfAbsent(gram, key -> new Posting()).add(document.id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids dos livros que contêm todos os termos da busca, do mais relevante para o menos relevante.
+     */
+    public List<Long> search(String query, int limit) {
+        String[] terms = tokens(normalize(query));
+        if (terms.length == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long id : candidates(terms)) {
+                Document document = documents.get(id);
+                double score = 0;
+                for (String term : terms) {
+                    double termScore = document.score(term);
+                    if (termScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += termScore;
+                }
+                if (score > 0) {
+                    hits.add(new Hit(id, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingDouble((Hit hit) -> -hit.score).thenComparing(hit -> hit.id));
+        List<Long> ids = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            ids.add(hits.get(i).id);
+        }
+        return ids;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] candidates(String[] terms) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String term : terms) {
+            if (term.length() >= GRAM) {
+                grams.addAll(grams(term));
+            }
+        }
+        List<Posting> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Posting posting = postings.get(gram);
+            if (posting == null) {
+                return new long[0];
+            }
+            lists.add(posting);
+        }
+        if (lists.isEmpty()) {
+            return new long[0];
+        }
+
+        // a menor lista limita o resultado: as demais só são consultadas para os ids dela
+        lists.sort(Comparator.comparingInt(posting -> posting.size));
+        long[] candidates = lists.get(0).toArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = lists.get(i).retain(candidates, count);
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private void removeDocument(Long id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous.text())) {
+            Posting posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String token : tokens(text)) {
+            for (int i = 0; i + GRAM <= token.length(); i++) {
+                grams.add(token.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    private static String[] tokens(String text) {
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(" ");
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String withoutAccents = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutAccents.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    private static class Document {
+        private final Long id;
+        private final String title;
+        private final String author;
+        private final String isbn;
+
+        private Document(Long id, String title, String author, String isbn) {
+            this.id = id;
+            this.title = title;
+            this.author = author;
+            this.isbn = isbn;
+        }
+
+        private String text() {
+            return title + " " + author + " " + isbn;
+        }
+
+        private double score(String term) {
+            double score = 0;
+            if (isbn.equals(term)) {
+                score += 8;
+            } else if (isbn.contains(term)) {
+                score += 1;
+            }
+            score += fieldScore(title, term, 3);
+            score += fieldScore(author, term, 2);
+            return score;
+        }
+
+        private static double fieldScore(String field, String term, double weight) {
+            if (!field.contains(term)) {
+                return 0;
+            }
+            double score = weight;
+            for (String token : tokens(field)) {
+                if (token.equals(term)) {
+                    return weight * 2;
+                }
+                if (token.startsWith(term)) {
+                    score = weight * 1.5;
+                }
+            }
+            return score;
+        }
+    }
+
+    /**
+     * Ids de uma lista invertida em ordem crescente, sem o boxing e os nós de entrada de um {@code HashSet<Long>}.
+     * Livros novos recebem ids maiores, então a inclusão costuma ser no fim do array.
+     */
+    private static class Posting {
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        private void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        /**
+         * Mantém no início de candidates, ordenados, só os ids que também estão nesta lista e
+         * devolve quantos ficaram. Como os dois lados estão ordenados, cada busca começa onde a anterior parou.
+         */
+        private int retain(long[] candidates, int count) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count && from < size; i++) {
+                int index = Arrays.binarySearch(ids, from, size, candidates[i]);
+                if (index >= 0) {
+                    candidates[kept++] = candidates[i];
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+            return kept;
+        }
+    }
+
+    private static class Hit {
+        private final Long id;
+        private final double score;
+
+        private Hit(Long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
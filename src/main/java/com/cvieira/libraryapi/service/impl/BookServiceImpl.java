@@ -1,36 +1,144 @@
 package com.cvieira.libraryapi.service.impl;
 
+import com.cvieira.libraryapi.config.CacheConfig;
+import com.cvieira.libraryapi.dto.BookImportResultDTO;
 import com.cvieira.libraryapi.exception.BusinessException;
+import com.cvieira.libraryapi.exception.ConstraintViolations;
 import com.cvieira.libraryapi.model.entity.Book;
 import com.cvieira.libraryapi.model.repository.BookRepository;
 import com.cvieira.libraryapi.service.BookService;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    private static final int IMPORT_LOOKUP_SIZE = 1000;
+    private static final int ON_LOAN_BATCH_SIZE = 1000;
+    private static final long COUNT_REFRESH_SECONDS = 60;
+    private static final long COUNT_MAXIMUM_FILTERS = 1000;
+
     private BookRepository repository;
+    private BookSearchIndex searchIndex;
+    private CountEstimator<Book> countEstimator;
+    private CacheManager cacheManager;
 
-    public BookServiceImpl(BookRepository bookRepository) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookServiceImpl(BookRepository bookRepository, BookSearchIndex searchIndex, CacheManager cacheManager) {
         this.repository = bookRepository;
+        this.searchIndex = searchIndex;
+        this.cacheManager = cacheManager;
+        this.countEstimator = new CountEstimator<>(
+                filter -> repository.count(example(filter)), COUNT_REFRESH_SECONDS, COUNT_MAXIMUM_FILTERS);
     }
 
     public Book save(Book book) {
-        if(repository.existsByIsbn(book.getIsbn())) {
-            throw new BusinessException("ISBN já cadastrado");
+        try {
+            Book savedBook = repository.saveAndFlush(book);
+            searchIndex.index(savedBook);
+            return savedBook;
+        } catch (DataIntegrityViolationException ex) {
+            if(ConstraintViolations.isViolationOf(ex, Book.UK_ISBN)) {
+                throw new BusinessException("ISBN já cadastrado");
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<BookImportResultDTO> saveAll(List<Book> books) {
+        BookImportResultDTO[] results = new BookImportResultDTO[books.size()];
+        Set<String> isbns = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            if(isBlank(book.getTitle()) || isBlank(book.getAuthor()) || isBlank(book.getIsbn())) {
+                results[i] = importResult(book, BookImportResultDTO.Status.INVALID, "Título, autor e isbn são obrigatórios");
+            } else if(!isbns.add(book.getIsbn())) {
+                results[i] = importResult(book, BookImportResultDTO.Status.DUPLICATED, "ISBN repetido na requisição");
+            } else {
+                candidates.add(i);
+            }
         }
-        return repository.save(book);
+
+        Set<String> existing = new HashSet<>();
+        List<String> pending = new ArrayList<>(isbns);
+        for (int from = 0; from < pending.size(); from += IMPORT_LOOKUP_SIZE) {
+            existing.addAll(repository.findExistingIsbns(
+                    pending.subList(from, Math.min(from + IMPORT_LOOKUP_SIZE, pending.size()))));
+        }
+
+        List<Book> inserting = new ArrayList<>();
+        for (Integer i : candidates) {
+            Book book = books.get(i);
+            if(existing.contains(book.getIsbn())) {
+                results[i] = importResult(book, BookImportResultDTO.Status.DUPLICATED, "ISBN já cadastrado");
+            } else {
+                inserting.add(book);
+            }
+        }
+
+        List<Book> saved = repository.saveAll(inserting);
+        repository.flush();
+        for (int i = 0, next = 0; i < results.length; i++) {
+            if(results[i] == null) {
+                Book book = saved.get(next++);
+                results[i] = importResult(book, BookImportResultDTO.Status.CREATED, null);
+            }
+        }
+
+        afterCommit(() -> saved.forEach(searchIndex::index));
+        return Arrays.asList(results);
     }
 
+    /**
+     * Lida no primário: o resultado fica no cache e o livro costuma ser alterado em seguida, então uma
+     * cópia atrasada da réplica seria servida até a próxima alteração.
+     */
+    @Transactional
     public Optional<Book> getById(Long id) {
-        return repository.findById(id);
+        return cached(CacheConfig.BOOKS_BY_ID, id, () -> repository.findById(id));
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.BOOK_VERSIONS, key = "#id", unless = "#result == null")
+    @Transactional
+    public Optional<Long> getVersion(Long id) {
+        return repository.findVersionById(id);
     }
 
     @Override
@@ -40,6 +148,8 @@ public class BookServiceImpl implements BookService {
             throw new IllegalArgumentException("Book id cant be null.");
         }
         repository.delete(book);
+        searchIndex.remove(book.getId());
+        evict(book);
     }
 
     @Override
@@ -47,23 +157,182 @@ public class BookServiceImpl implements BookService {
         if(book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id cant be null.");
         }
-        return repository.save(book);
+        Book updatedBook = repository.save(book);
+        searchIndex.index(updatedBook);
+        evict(updatedBook);
+        return updatedBook;
+    }
+
+    @Override
+    @Transactional
+    public void updateOnLoan(Book book, boolean onLoan) {
+        // por id a busca passa pelo cache de segundo nível, e o dirty checking altera só a entrada deste livro
+        repository.findById(book.getId()).ifPresent(managed -> setOnLoan(Collections.singletonList(managed), onLoan));
+    }
+
+    @Override
+    @Transactional
+    public void updateOnLoan(Collection<Long> bookIds, boolean onLoan) {
+        List<Long> ids = new ArrayList<>(bookIds);
+        for (int from = 0; from < ids.size(); from += ON_LOAN_BATCH_SIZE) {
+            setOnLoan(repository.findAllById(ids.subList(from, Math.min(from + ON_LOAN_BATCH_SIZE, ids.size()))), onLoan);
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
-        Example<Book> example = Example.of(filter,
-                                    ExampleMatcher.matching()
-                                    .withIgnoreCase()
-                                    .withIgnoreNullValues()
-                                    .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return repository.findAll(example, pageRequest);
+        return repository.findAll(example(filter), pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        return repository.findSlice(example(filter), pageRequest);
+    }
+
+    @Override
+    public long estimateCount(Book filter) {
+        return countEstimator.estimate(filter);
+    }
+
+    private void setOnLoan(List<Book> books, boolean onLoan) {
+        for (Book book : books) {
+            if (!Boolean.valueOf(onLoan).equals(book.getOnLoan())) {
+                book.setOnLoan(onLoan);
+                evict(book);
+            }
+        }
+    }
+
+    /**
+     * Os caches guardam cópias destacadas: quem recebe o livro pode alterá-lo sem mudar a entrada em cache,
+     * e a entrada não fica presa a uma sessão do Hibernate.
+     */
+    private Optional<Book> cached(String cacheName, Object key, Supplier<Optional<Book>> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Book cachedBook = cache.get(key, Book.class);
+        if (cachedBook != null) {
+            return Optional.of(copy(cachedBook));
+        }
+        Optional<Book> book = loader.get();
+        book.ifPresent(found -> cache.put(key, copy(found)));
+        return book;
+    }
+
+    /**
+     * Invalida só depois da confirmação: antes dela uma leitura concorrente ainda veria a versão anterior
+     * na base e a devolveria ao cache.
+     */
+    private void evict(Book book) {
+        Long id = book.getId();
+        String isbn = book.getIsbn();
+        afterCommit(() -> {
+            cacheManager.getCache(CacheConfig.BOOKS_BY_ID).evict(id);
+            cacheManager.getCache(CacheConfig.BOOK_VERSIONS).evict(id);
+            if (isbn != null) {
+                cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).evict(isbn);
+            }
+        });
+    }
+
+    private static Book copy(Book book) {
+        return Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .version(book.getVersion())
+                .onLoan(book.getOnLoan())
+                .build();
+    }
+
+    private void afterCommit(Runnable action) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static BookImportResultDTO importResult(Book book, BookImportResultDTO.Status status, String message) {
+        return BookImportResultDTO.builder()
+                .isbn(book.getIsbn())
+                .id(book.getId())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private Example<Book> example(Book filter) {
+        return Example.of(filter,
+                    ExampleMatcher.matching()
+                    .withIgnoreCase()
+                    .withIgnoreNullValues()
+                    .withIgnorePaths("version")
+                    .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        return cached(CacheConfig.BOOKS_BY_ISBN, isbn, () -> repository.findByIsbn(isbn));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Book> consumer) {
+        // o Hibernate só aplica o cacheMode da consulta durante a execução, e as linhas do stream são
+        // carregadas depois: a sessão fica em IGNORE até o fim para a exportação não encher a região book
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previousCacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try (Stream<Book> books = repository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        } finally {
+            session.setCacheMode(previousCacheMode);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> search(String query, int size) {
+        List<Long> ids = searchIndex.search(query, size);
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : repository.findAllById(ids)) {
+            books.put(book.getId(), book);
+        }
+
+        List<Book> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book book = books.get(id);
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> findAfterId(Long id, int size) {
+        return repository.findAfterId(id, PageRequest.of(0, size));
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> findAfterTitle(String title, Long id, int size) {
+        return repository.findAfterTitle(title, id, PageRequest.of(0, size));
+    }
 }
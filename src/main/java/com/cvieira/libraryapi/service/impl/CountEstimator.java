@@ -0,0 +1,41 @@
+package com.cvieira.libraryapi.service.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Total aproximado por filtro: o primeiro pedido conta na base e os seguintes usam o valor em cache,
+ * recontado em segundo plano quando fica mais velho que o intervalo de atualização. Um filtro que
+ * passa dez intervalos sem ser pedido é descartado e volta a ser contado na base no pedido seguinte.
+ */
+public class CountEstimator<K> {
+
+    private static final int EXPIRE_AFTER_REFRESHES = 10;
+
+    private final LoadingCache<K, Long> counts;
+
+    public CountEstimator(Function<K, Long> counter, long refreshAfterSeconds, long maximumSize) {
+        this(counter, refreshAfterSeconds, maximumSize, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    public CountEstimator(Function<K, Long> counter, long refreshAfterSeconds, long maximumSize,
+                          Ticker ticker, Executor executor) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfterSeconds, TimeUnit.SECONDS)
+                .expireAfterWrite(refreshAfterSeconds * EXPIRE_AFTER_REFRESHES, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .executor(executor)
+                .build(counter::apply);
+    }
+
+    public long estimate(K filter) {
+        return counts.get(filter);
+    }
+}
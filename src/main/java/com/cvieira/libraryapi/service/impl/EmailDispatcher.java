@@ -0,0 +1,156 @@
+package com.cvieira.libraryapi.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fila limitada de mensagens de email consumida por um pool de workers próprio,
+ * de forma que o envio (lento e sujeito a falhas) nunca ocupe as threads da aplicação.
+ */
+@Slf4j
+@Component
+public class EmailDispatcher {
+
+    private final JavaMailSender javaMailSender;
+    private final BlockingQueue<SimpleMailMessage> queue;
+    private final int workers;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long offerTimeoutMillis;
+
+    private final Timer sendTimer;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public EmailDispatcher(JavaMailSender javaMailSender,
+                           MeterRegistry meterRegistry,
+                           @Value("${application.mail.dispatcher.workers:2}") int workers,
+                           @Value("${application.mail.dispatcher.capacity:1000}") int capacity,
+                           @Value("${application.mail.dispatcher.max-attempts:3}") int maxAttempts,
+                           @Value("${application.mail.dispatcher.backoff-ms:1000}") long backoffMillis,
+                           @Value("${application.mail.dispatcher.offer-timeout-ms:100}") long offerTimeoutMillis) {
+        this.javaMailSender = javaMailSender;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+
+        Gauge.builder("library.mail.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.sendTimer = Timer.builder("library.mail.send").register(meterRegistry);
+        this.failedCounter = Counter.builder("library.mail.failed").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("library.mail.rejected").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "mail-dispatcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::consume);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Enfileira a mensagem, aguardando no máximo o timeout configurado quando a fila está cheia.
+     *
+     * @return false se a mensagem foi descartada por falta de capacidade
+     */
+    public boolean enqueue(SimpleMailMessage mailMessage) {
+        try {
+            if (queue.offer(mailMessage, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedCounter.increment();
+        log.warn("Mail queue is full, discarding message to {} recipients", mailMessage.getTo().length);
+        return false;
+    }
+
+    /**
+     * Enfileira a mensagem esperando o tempo que for preciso por espaço na fila: quem produz em lote
+     * anda no ritmo da entrega, em vez de ter mensagens descartadas.
+     *
+     * @return false se o dispatcher parou antes de haver espaço na fila
+     */
+    public boolean put(SimpleMailMessage mailMessage) throws InterruptedException {
+        while (running) {
+            if (queue.offer(mailMessage, 500, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void consume() {
+        while (running || !queue.isEmpty()) {
+            try {
+                SimpleMailMessage mailMessage = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (mailMessage != null) {
+                    deliver(mailMessage);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void deliver(SimpleMailMessage mailMessage) throws InterruptedException {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            long start = System.nanoTime();
+            try {
+                javaMailSender.send(mailMessage);
+                sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return;
+            } catch (MailException ex) {
+                sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.warn("Failed to send mail (attempt {} of {}): {}", attempt, maxAttempts, ex.getMessage());
+                if (attempt < maxAttempts) {
+                    Thread.sleep(backoffMillis << (attempt - 1));
+                }
+            }
+        }
+        failedCounter.increment();
+    }
+}
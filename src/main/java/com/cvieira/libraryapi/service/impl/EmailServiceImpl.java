@@ -4,9 +4,9 @@ import com.cvieira.libraryapi.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -14,22 +14,37 @@ import java.util.List;
 public class EmailServiceImpl implements EmailService {
 
 
-    private final JavaMailSender javaMailSender;
+    private final EmailDispatcher emailDispatcher;
 
     @Value("${application.mail.default-remetent}")
     private String remetent;
 
-    @Override
-    public void sendEmails(String message, List<String> emailList) {
-
-        String[] mails = emailList.toArray(new String[emailList.size()]);
+    @Value("${application.mail.dispatcher.batch-size:50}")
+    private int batchSize;
 
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro com empréstimo atrasado");
-        mailMessage.setText(message);
-        mailMessage.setTo(mails);
-
-        javaMailSender.send(mailMessage);
+    @Override
+    public List<String> sendEmails(String message, List<String> emailList) {
+        List<String> rejected = new ArrayList<>();
+        for (int from = 0; from < emailList.size(); from += batchSize) {
+            List<String> batch = emailList.subList(from, Math.min(from + batchSize, emailList.size()));
+            String[] mails = batch.toArray(new String[batch.size()]);
+
+            SimpleMailMessage mailMessage = new SimpleMailMessage();
+            mailMessage.setFrom(remetent);
+            mailMessage.setSubject("Livro com empréstimo atrasado");
+            mailMessage.setText(message);
+            mailMessage.setTo(mails);
+
+            try {
+                if (!emailDispatcher.put(mailMessage)) {
+                    rejected.addAll(batch);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                rejected.addAll(emailList.subList(from, emailList.size()));
+                break;
+            }
+        }
+        return rejected;
     }
 }
@@ -0,0 +1,72 @@
+package com.cvieira.libraryapi.service.impl;
+
+import com.cvieira.libraryapi.service.LoanService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Move periodicamente para o arquivo os empréstimos devolvidos há mais que o período de retenção.
+ * Cada lote é uma transação curta e há uma pausa entre os lotes, para não disputar a tabela de
+ * empréstimos com as requisições; o número de lotes por execução é limitado e o restante fica
+ * para a próxima execução.
+ */
+@Slf4j
+@Component
+public class LoanArchiver {
+
+    private final LoanService loanService;
+    private final int retentionDays;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long pauseMillis;
+    private final Counter archivedCounter;
+
+    public LoanArchiver(LoanService loanService,
+                        MeterRegistry meterRegistry,
+                        @Value("${application.loans.archive.retention-days:90}") int retentionDays,
+                        @Value("${application.loans.archive.batch-size:500}") int batchSize,
+                        @Value("${application.loans.archive.max-batches:100}") int maxBatches,
+                        @Value("${application.loans.archive.pause-ms:200}") long pauseMillis) {
+        this.loanService = loanService;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pauseMillis = pauseMillis;
+        this.archivedCounter = Counter.builder("library.loans.archived").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.loans.archive.interval-ms:3600000}",
+            initialDelayString = "${application.loans.archive.interval-ms:3600000}")
+    public int archive() {
+        LocalDate returnedBefore = LocalDate.now().minusDays(retentionDays);
+        long start = System.currentTimeMillis();
+        int total = 0;
+
+        for (int batch = 1; batch <= maxBatches; batch++) {
+            int archived = loanService.archiveReturned(returnedBefore, batchSize);
+            total += archived;
+            archivedCounter.increment(archived);
+            if (archived < batchSize || batch == maxBatches) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Archived {} loans returned before {} in {} ms",
+                    total, returnedBefore, System.currentTimeMillis() - start);
+        }
+        return total;
+    }
+}
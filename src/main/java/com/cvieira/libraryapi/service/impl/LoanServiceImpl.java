@@ -2,60 +2,357 @@ package com.cvieira.libraryapi.service.impl;
 
 import com.cvieira.libraryapi.dto.LoanDTO;
 import com.cvieira.libraryapi.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.dto.LoanReturnResultDTO;
 import com.cvieira.libraryapi.exception.BusinessException;
+import com.cvieira.libraryapi.exception.ConstraintViolations;
 import com.cvieira.libraryapi.model.entity.Book;
 import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.model.entity.LoanArchive;
+import com.cvieira.libraryapi.model.repository.LoanArchiveRepository;
 import com.cvieira.libraryapi.model.repository.LoanRepository;
+import com.cvieira.libraryapi.model.repository.LoanStatus;
+import com.cvieira.libraryapi.service.BookService;
 import com.cvieira.libraryapi.service.LoanService;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
+    private static final int LOAN_DAYS = 4;
+    private static final int RETURN_BATCH_SIZE = 1000;
+
+    private static final long COUNT_REFRESH_SECONDS = 60;
+    private static final long COUNT_MAXIMUM_FILTERS = 1000;
+    private static final Sort LOANS_BY_BOOK_SORT = Sort.by(Sort.Direction.DESC, "id");
+
     private LoanRepository repository;
+    private LoanArchiveRepository archiveRepository;
+    private ActiveLoanIndex activeLoanIndex;
+    private BookService bookService;
+    private CountEstimator<LoanFilterDTO> countEstimator;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, LoanArchiveRepository archiveRepository,
+                           ActiveLoanIndex activeLoanIndex, BookService bookService) {
         this.repository = repository;
+        this.archiveRepository = archiveRepository;
+        this.activeLoanIndex = activeLoanIndex;
+        this.bookService = bookService;
+        this.countEstimator = new CountEstimator<>(
+                filter -> repository.countByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer()),
+                COUNT_REFRESH_SECONDS, COUNT_MAXIMUM_FILTERS);
     }
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook())) {
+        Long bookId = loan.getBook().getId();
+        if(!activeLoanIndex.tryAcquire(bookId)) {
             throw new BusinessException("Livro já emprestado");
         }
-        return repository.save(loan);
+        try {
+            Loan saved = repository.save(loan);
+            bookService.updateOnLoan(loan.getBook(), true);
+            // a transação ainda pode ser desfeita na confirmação; o livro só continua no índice se ela for confirmada
+            afterRollback(() -> activeLoanIndex.release(bookId));
+            return saved;
+        } catch (DataIntegrityViolationException ex) {
+            if(ConstraintViolations.isViolationOf(ex, Loan.UK_ACTIVE_BOOK)) {
+                // emprestado por outra instância: o livro continua marcado no índice
+                throw new BusinessException("Livro já emprestado");
+            }
+            activeLoanIndex.release(bookId);
+            throw ex;
+        } catch (RuntimeException ex) {
+            activeLoanIndex.release(bookId);
+            throw ex;
+        }
     }
 
+    // no primário: o empréstimo lido aqui é o que o controller devolve em seguida para update
     @Override
+    @Transactional
     public Optional<Loan> getById(Long id) {
         return repository.findById(id);
     }
 
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        Book book = loan.getBook();
+        // atualizações condicionais: só a requisição que de fato mudou a situação do empréstimo mexe no livro
+        if(loan.isReturned()) {
+            if(repository.markReturned(Collections.singletonList(loan.getId())) > 0) {
+                bookService.updateOnLoan(book, false);
+                afterCommit(() -> activeLoanIndex.release(book.getId()));
+            }
+        } else {
+            reopen(loan.getId(), book);
+        }
+        return loan;
+    }
+
+    private void reopen(Long id, Book book) {
+        try {
+            if(repository.reopen(id, book.getId()) == 0) {
+                return;
+            }
+        } catch (DataIntegrityViolationException ex) {
+            if(ConstraintViolations.isViolationOf(ex, Loan.UK_ACTIVE_BOOK)) {
+                throw new BusinessException("Livro já emprestado");
+            }
+            throw ex;
+        }
+        if(!activeLoanIndex.tryAcquire(book.getId())) {
+            throw new BusinessException("Livro já emprestado");
+        }
+        afterRollback(() -> activeLoanIndex.release(book.getId()));
+        bookService.updateOnLoan(book, true);
+    }
+
+    @Override
+    @Transactional
+    public LoanReturnResultDTO returnAll(Collection<Long> ids, Collection<String> isbns) {
+        List<Long> requestedIds = ids != null ? new ArrayList<>(new LinkedHashSet<>(ids)) : Collections.emptyList();
+        List<String> requestedIsbns = isbns != null ? new ArrayList<>(new LinkedHashSet<>(isbns)) : Collections.emptyList();
+
+        Set<Long> toReturn = new LinkedHashSet<>();
+        List<Long> alreadyReturned = new ArrayList<>();
+        Set<Long> found = new HashSet<>();
+        Set<Long> bookIds = new HashSet<>();
+        for (List<Long> batch : batches(requestedIds)) {
+            for (LoanStatus status : repository.findStatusByIds(batch)) {
+                found.add(status.getId());
+                if (Boolean.TRUE.equals(status.getReturned())) {
+                    alreadyReturned.add(status.getId());
+                } else {
+                    toReturn.add(status.getId());
+                    bookIds.add(status.getBookId());
+                }
+            }
+        }
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requestedIds) {
+            if (!found.contains(id)) {
+                missing.add(id);
+            }
+        }
+        // empréstimos arquivados já foram devolvidos
+        Set<Long> archived = new HashSet<>();
+        for (List<Long> batch : batches(missing)) {
+            archived.addAll(archiveRepository.findExistingIds(batch));
+        }
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : missing) {
+            if (archived.contains(id)) {
+                alreadyReturned.add(id);
+            } else {
+                notFound.add(id);
+            }
+        }
+
+        Set<String> loanedIsbns = new HashSet<>();
+        for (List<String> batch : batches(requestedIsbns)) {
+            for (LoanStatus status : repository.findActiveStatusByIsbns(batch)) {
+                loanedIsbns.add(status.getIsbn());
+                toReturn.add(status.getId());
+                bookIds.add(status.getBookId());
+            }
+        }
+        List<String> isbnsNotLoaned = new ArrayList<>();
+        for (String isbn : requestedIsbns) {
+            if (!loanedIsbns.contains(isbn)) {
+                isbnsNotLoaned.add(isbn);
+            }
+        }
+
+        // as situações foram lidas com lock: os empréstimos devolvidos abaixo são exatamente os de toReturn,
+        // então só os livros deles são liberados
+        int returned = 0;
+        for (List<Long> batch : batches(new ArrayList<>(toReturn))) {
+            returned += repository.markReturned(batch);
+        }
+        if (!bookIds.isEmpty()) {
+            bookService.updateOnLoan(bookIds, false);
+        }
+        afterCommit(() -> bookIds.forEach(activeLoanIndex::release));
+
+        return LoanReturnResultDTO.builder()
+                .returned(returned)
+                .notFound(notFound)
+                .alreadyReturned(alreadyReturned)
+                .isbnsNotLoaned(isbnsNotLoaned)
+                .build();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filter, Pageable pageable) {
         return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable) {
+        return repository.findSliceByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
+    }
+
+    @Override
+    public long estimateCount(LoanFilterDTO filter) {
+        return countEstimator.estimate(filter);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Loan> findAfter(LoanFilterDTO filter, Long id, int size) {
+        return repository.findByBookIsbnOrCustomerAfter(filter.getIsbn(), filter.getCustomer(), id, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return repository.findByBook(book, pageable);
+        if (pageable.getSort().isUnsorted()) {
+            // mesma ordem do arquivo, para que as duas partes formem uma única sequência
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), LOANS_BY_BOOK_SORT);
+        }
+        Page<Loan> loans = repository.findByBook(book, pageable);
+        if (loans.getNumberOfElements() == pageable.getPageSize()) {
+            // página completa na tabela de empréstimos: o arquivo só entra no total
+            return new PageImpl<>(loans.getContent(), pageable,
+                    loans.getTotalElements() + archiveRepository.countByBookId(book.getId()));
+        }
+
+        long archiveOffset = Math.max(0, pageable.getOffset() - loans.getTotalElements());
+        int limit = pageable.getPageSize() - loans.getNumberOfElements();
+        List<LoanArchive> archived = archiveRepository.findByBookId(book.getId(), archiveOffset, limit);
+
+        List<Loan> content = new ArrayList<>(loans.getContent());
+        for (LoanArchive loanArchive : archived) {
+            content.add(toLoan(loanArchive, book));
+        }
+        long archivedTotal = archiveOffset == 0 && archived.size() < limit
+                ? archived.size()
+                : archiveRepository.countByBookId(book.getId());
+        return new PageImpl<>(content, pageable, loans.getTotalElements() + archivedTotal);
+    }
+
+    @Override
+    @Transactional
+    public int archiveReturned(LocalDate returnedBefore, int batchSize) {
+        List<Long> ids = repository.findArchivableIds(returnedBefore, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // os ids foram lidos com lock: nenhum empréstimo do lote pode ser reaberto entre a cópia e a remoção
+        int copied = archiveRepository.copyReturned(ids);
+        int deleted = repository.deleteReturned(ids);
+        if (deleted != copied) {
+            throw new IllegalStateException("Archived " + copied + " loans but deleted " + deleted);
+        }
+        return deleted;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-        return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+        return repository.findByLoanDateLessThanAndNotReturned(lateLoanDate());
+    }
+
+    @Override
+    public Map<Long, Boolean> getAvailability(Collection<Long> bookIds) {
+        Map<Long, Boolean> availability = new LinkedHashMap<>();
+        for (Long bookId : bookIds) {
+            availability.put(bookId, !activeLoanIndex.isOnLoan(bookId));
+        }
+        return availability;
+    }
+
+    @Override
+    public void forEachLateLoansChunk(int chunkSize, Consumer<List<Loan>> action) {
+        LocalDate threeDaysAgo = lateLoanDate();
+        PageRequest chunk = PageRequest.of(0, chunkSize);
+        Long lastId = 0l;
+
+        List<Loan> loans;
+        do {
+            loans = repository.findLateLoansAfter(threeDaysAgo, lastId, chunk);
+            if(!loans.isEmpty()) {
+                action.accept(loans);
+                lastId = loans.get(loans.size() - 1).getId();
+            }
+        } while (loans.size() == chunkSize);
+    }
+
+    private void afterCommit(Runnable action) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void afterRollback(Runnable action) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if(status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static Loan toLoan(LoanArchive loanArchive, Book book) {
+        return Loan.builder()
+                .id(loanArchive.getId())
+                .customer(loanArchive.getCustomer())
+                .customerEmail(loanArchive.getCustomerEmail())
+                .book(book)
+                .loanDate(loanArchive.getLoanDate())
+                .returned(true)
+                .returnDate(loanArchive.getReturnDate())
+                .build();
+    }
+
+    private static <T> List<List<T>> batches(List<T> values) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += RETURN_BATCH_SIZE) {
+            batches.add(values.subList(start, Math.min(start + RETURN_BATCH_SIZE, values.size())));
+        }
+        return batches;
+    }
+
+    private LocalDate lateLoanDate() {
+        return LocalDate.now().minusDays(LOAN_DAYS);
     }
 }
@@ -0,0 +1,178 @@
+package com.cvieira.libraryapi.config;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import com.cvieira.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+/**
+ * Roteamento entre primário e réplica sobre os dois H2 do profile replica. A replicação e a medição
+ * do atraso são disparadas pelo teste para que o estado da réplica seja determinístico.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles({"test", "replica"})
+@SpringBootTest(properties = {
+        "application.loans.active-index.reconcile-ms=3600000",
+        "application.datasource.replica.lag-check-ms=3600000",
+        "application.datasource.replica.h2-sync-ms=3600000",
+        "spring.boot.admin.client.enabled=false"
+})
+public class ReadReplicaConfigTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private H2ReplicaSync replicaSync;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        ReflectionTestUtils.setField(lagMonitor, "maxLagMillis", 60000l);
+        lagMonitor.check();
+        replicaSync.sync();
+        lagMonitor.check();
+    }
+
+    @Test
+    @DisplayName("Deve gravar no primário e ler da réplica")
+    public void readsFromReplica() {
+        Assertions.assertTrue(lagMonitor.isAvailable());
+        double replicaRoutes = routes(ReadReplicaConfig.REPLICA);
+
+        bookService.save(createBook("001"));
+        // a réplica ainda não recebeu o livro
+        Assertions.assertEquals(0, bookService.find(new Book(), PageRequest.of(0, 10)).getTotalElements());
+
+        replicaSync.sync();
+        Assertions.assertEquals(1, bookService.find(new Book(), PageRequest.of(0, 10)).getTotalElements());
+        Assertions.assertTrue(routes(ReadReplicaConfig.REPLICA) > replicaRoutes);
+        Assertions.assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", ReadReplicaConfig.REPLICA).gauge());
+        Assertions.assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", ReadReplicaConfig.PRIMARY).gauge());
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário quando a réplica estiver atrasada")
+    public void fallbackToPrimaryWhenLagging() {
+        double fallbacks = meterRegistry.get("library.datasource.replica.fallback").counter().count();
+        bookService.save(createBook("001"));
+
+        ReflectionTestUtils.setField(lagMonitor, "maxLagMillis", -1l);
+        lagMonitor.check();
+
+        Assertions.assertFalse(lagMonitor.isAvailable());
+        Assertions.assertEquals(1, bookService.find(new Book(), PageRequest.of(0, 10)).getTotalElements());
+        Assertions.assertTrue(meterRegistry.get("library.datasource.replica.fallback").counter().count() > fallbacks);
+    }
+
+    @Test
+    @DisplayName("Deve considerar a réplica indisponível quando a última medição do atraso passar do limite")
+    public void unavailableWhenCheckIsStale() {
+        Assertions.assertTrue(lagMonitor.isAvailable());
+
+        // nenhuma medição desde então, como quando o job fica travado
+        ReflectionTestUtils.setField(lagMonitor, "lastCheckMillis", System.currentTimeMillis() - 60001l);
+
+        Assertions.assertFalse(lagMonitor.isAvailable());
+        lagMonitor.check();
+        Assertions.assertTrue(lagMonitor.isAvailable());
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário as consultas que alimentam o cache, mesmo com a réplica atrasada")
+    public void cachedReadsFromPrimary() {
+        Book book = bookService.save(createBook("001"));
+        replicaSync.sync();
+        book.setTitle("Novas aventuras");
+        bookService.update(book);
+        // só a réplica ficou para trás; os caches não podem esconder a leitura
+        entityManagerFactory.getCache().evictAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        Assertions.assertEquals("Novas aventuras", bookService.getById(book.getId()).get().getTitle());
+        Assertions.assertEquals(Optional.of(1l), bookService.getVersion(book.getId()));
+        Assertions.assertEquals("Novas aventuras", bookService.getById(book.getId()).get().getTitle());
+    }
+
+    @Test
+    @DisplayName("Não deve levar ao cache de segundo nível os livros lidos da réplica")
+    public void replicaReadsSkipSecondLevelCache() {
+        Book book = bookService.save(createBook("001"));
+        replicaSync.sync();
+        book.setTitle("Novas aventuras");
+        bookService.update(book);
+        entityManagerFactory.getCache().evictAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        // a réplica ainda tem o título anterior
+        Assertions.assertEquals("As aventuras",
+                bookService.find(new Book(), PageRequest.of(0, 10)).getContent().get(0).getTitle());
+        Assertions.assertFalse(entityManagerFactory.getCache().contains(Book.class, book.getId()));
+
+        Assertions.assertEquals("Novas aventuras", bookService.getById(book.getId()).get().getTitle());
+        Assertions.assertTrue(entityManagerFactory.getCache().contains(Book.class, book.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve restaurar o modo de cache da sessão aberta pela requisição ao fim da leitura na réplica")
+    public void restoreCacheModeOfOpenSession() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            bookService.find(new Book(), PageRequest.of(0, 10));
+
+            Assertions.assertEquals(CacheMode.NORMAL, entityManager.unwrap(Session.class).getCacheMode());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+    private double routes(String target) {
+        return meterRegistry.get("library.datasource.route").tag("target", target).counter().count();
+    }
+
+    private Book createBook(String isbn) {
+        return Book.builder().isbn(isbn).author("Fulano").title("As aventuras").build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.cvieira.libraryapi.config;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+
+/**
+ * Confere o pointcut contra os proxies reais do Spring Data, em que os métodos herdados do JpaRepository
+ * são executados pela implementação genérica e não pela interface do repositório.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({TimingAspect.class, TimingAspectRepositoryTest.AspectConfig.class})
+public class TimingAspectRepositoryTest {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve medir o tempo dos métodos herdados do JpaRepository")
+    public void timeInheritedRepositoryMethods() {
+        bookRepository.saveAll(Arrays.asList(createBook("001"), createBook("002")));
+        Assertions.assertEquals(2, bookRepository.count());
+        loanRepository.count();
+
+        Assertions.assertEquals(1, meterRegistry.get(TimingAspect.REPOSITORY_TIMER)
+                .tag("class", "BookRepository").tag("method", "saveAll").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(TimingAspect.REPOSITORY_TIMER)
+                .tag("class", "BookRepository").tag("method", "count").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(TimingAspect.REPOSITORY_TIMER)
+                .tag("class", "LoanRepository").tag("method", "count").timer().count());
+    }
+
+    private Book createBook(String isbn) {
+        return Book.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
+    }
+
+    @TestConfiguration
+    @EnableAspectJAutoProxy
+    static class AspectConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.cvieira.libraryapi.config;
+
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+public class TimingAspectTest {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Deve medir o tempo dos métodos do serviço")
+    public void timeServiceMethods() {
+        BookService target = Mockito.mock(BookService.class);
+        Mockito.when(target.getById(1l)).thenThrow(new IllegalStateException());
+        BookService bookService = proxy(target);
+
+        bookService.search("aventuras", 10);
+        Assertions.assertThrows(IllegalStateException.class, () -> bookService.getById(1l));
+
+        Assertions.assertEquals(1, meterRegistry.get(TimingAspect.SERVICE_TIMER)
+                .tag("class", "BookService").tag("method", "search").tag("exception", "none")
+                .timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(TimingAspect.SERVICE_TIMER)
+                .tag("method", "getById").tag("exception", "IllegalStateException")
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("Deve medir o tempo das consultas do repositório, inclusive as herdadas")
+    public void timeRepositoryMethods() {
+        BookRepository bookRepository = proxy(Mockito.mock(BookRepository.class));
+
+        bookRepository.existsByIsbn("123");
+        bookRepository.findById(1l);
+
+        Assertions.assertEquals(1, meterRegistry.get(TimingAspect.REPOSITORY_TIMER)
+                .tag("class", "BookRepository").tag("method", "existsByIsbn").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(TimingAspect.REPOSITORY_TIMER)
+                .tag("class", "BookRepository").tag("method", "findById").timer().count());
+    }
+
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new TimingAspect(meterRegistry));
+        return factory.getProxy();
+    }
+}
@@ -0,0 +1,42 @@
+package com.cvieira.libraryapi.mapper;
+
+import com.cvieira.libraryapi.dto.LoanDTO;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+public class LoanMapperTest {
+
+    @Test
+    @DisplayName("Deve converter um empréstimo com o seu livro para DTO")
+    public void loanToDTO() {
+        Book book = Book.builder().id(2l).title("As aventuras").author("Fulano").isbn("123").build();
+        Loan loan = Loan.builder().id(1l).book(book).customer("Ciclano")
+                .customerEmail("ciclano@email.com").loanDate(LocalDate.now()).build();
+
+        LoanDTO dto = LoanMapper.toDTO(loan);
+
+        Assertions.assertEquals(1l, dto.getId());
+        Assertions.assertEquals("123", dto.getIsbn());
+        Assertions.assertEquals("Ciclano", dto.getCustomer());
+        Assertions.assertEquals("ciclano@email.com", dto.getEmail());
+        Assertions.assertEquals(2l, dto.getBook().getId());
+        Assertions.assertEquals("As aventuras", dto.getBook().getTitle());
+        Assertions.assertEquals("Fulano", dto.getBook().getAuthor());
+    }
+
+    @Test
+    @DisplayName("Deve converter um empréstimo sem livro para DTO")
+    public void loanWithoutBookToDTO() {
+        Loan loan = Loan.builder().id(1l).customer("Ciclano").build();
+
+        LoanDTO dto = LoanMapper.toDTO(loan);
+
+        Assertions.assertNull(dto.getBook());
+        Assertions.assertNull(dto.getIsbn());
+    }
+}
@@ -1,6 +1,8 @@
 package com.cvieira.libraryapi.model.repository;
 
 import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.support.StatementCounter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,9 +10,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 @ExtendWith(SpringExtension.class)
@@ -61,6 +69,67 @@ public class BookRepositoryTest {
         Assertions.assertTrue(savedBook.getId() != null);
     }
 
+    @Test
+    @DisplayName("Deve incrementar a versão a cada atualização do livro")
+    public void findVersionById() {
+        Book book = persistBook("Aventuras", "123");
+        Assertions.assertEquals(Optional.of(0l), repository.findVersionById(book.getId()));
+
+        book.setTitle("Novas aventuras");
+        entityManager.flush();
+
+        Assertions.assertEquals(Optional.of(1l), repository.findVersionById(book.getId()));
+        Assertions.assertFalse(repository.findVersionById(book.getId() + 1).isPresent());
+    }
+
+    @Test
+    @DisplayName("Deve encontrar por exemplo livros já atualizados, sem filtrar pela versão")
+    public void findUpdatedBookByExample() {
+        Book book = persistBook("Aventuras", "123");
+        book.setTitle("Novas aventuras");
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Book> books = repository.findAll(Example.of(Book.builder().title("Novas aventuras").build(),
+                ExampleMatcher.matching().withIgnoreNullValues()));
+
+        Assertions.assertEquals(1, books.size());
+        Assertions.assertEquals(Long.valueOf(1), books.get(0).getVersion());
+    }
+
+    @Test
+    @DisplayName("Deve marcar os livros emprestados incrementando a versão apenas dos que mudaram")
+    public void updateOnLoan() {
+        Book first = persistBook("Aventuras", "123");
+        Book second = persistBook("Mais aventuras", "456");
+        Assertions.assertFalse(first.getOnLoan());
+
+        Assertions.assertEquals(2, repository.updateOnLoan(Arrays.asList(first.getId(), second.getId()), true));
+        Assertions.assertEquals(0, repository.updateOnLoan(Arrays.asList(first.getId()), true));
+        Assertions.assertEquals(1, repository.updateOnLoan(Arrays.asList(second.getId()), false));
+        entityManager.clear();
+
+        Assertions.assertTrue(repository.findById(first.getId()).get().getOnLoan());
+        Assertions.assertFalse(repository.findById(second.getId()).get().getOnLoan());
+        Assertions.assertEquals(Optional.of(1l), repository.findVersionById(first.getId()));
+        Assertions.assertEquals(Optional.of(2l), repository.findVersionById(second.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar os livros disponíveis sem consultar os empréstimos")
+    public void findAvailableBooks() {
+        Book loaned = persistBook("Aventuras", "123");
+        Book available = persistBook("Mais aventuras", "456");
+        repository.updateOnLoan(Arrays.asList(loaned.getId()), true);
+        entityManager.clear();
+
+        List<Book> books = repository.findAll(Example.of(Book.builder().onLoan(false).build(),
+                ExampleMatcher.matching().withIgnoreNullValues().withIgnorePaths("version")));
+
+        Assertions.assertEquals(1, books.size());
+        Assertions.assertEquals(available.getId(), books.get(0).getId());
+    }
+
     @Test
     @DisplayName("Deve deletar um livro")
     public void deleteBook() {
@@ -77,6 +146,63 @@ public class BookRepositoryTest {
         Assertions.assertTrue(deletedBook == null);
     }
 
+    @Test
+    @DisplayName("Deve obter os livros seguintes ao cursor ordenados por título e id")
+    public void findAfterTitle() {
+        Book first = persistBook("A casa", "1");
+        Book second = persistBook("B jardim", "2");
+        Book third = persistBook("B jardim", "3");
+        persistBook("C noite", "4");
+
+        List<Book> firstPage = repository.findAfterTitle("", 0l, PageRequest.of(0, 2));
+        Book last = firstPage.get(firstPage.size() - 1);
+        List<Book> secondPage = repository.findAfterTitle(last.getTitle(), last.getId(), PageRequest.of(0, 2));
+
+        Assertions.assertEquals(Arrays.asList(first, second), firstPage);
+        Assertions.assertEquals(third, secondPage.get(0));
+        Assertions.assertEquals("C noite", secondPage.get(1).getTitle());
+    }
+
+    @Test
+    @DisplayName("Não deve carregar os empréstimos ao usar toString, equals e hashCode do livro")
+    public void bookObjectMethodsDoNotLoadLoans() {
+        Book book = persistBook("Aventuras", "123");
+        entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        StatementCounter statements = startCounting();
+
+        Book found = repository.findByIsbn("123").get();
+        found.toString();
+        found.hashCode();
+        found.equals(book);
+
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve obter a página seguinte ao cursor em um único comando")
+    public void findAfterIdStatementCount() {
+        persistBook("A casa", "1");
+        persistBook("B jardim", "2");
+        persistBook("C noite", "3");
+        StatementCounter statements = startCounting();
+
+        List<Book> books = repository.findAfterId(0l, PageRequest.of(0, 2));
+
+        Assertions.assertEquals(2, books.size());
+        statements.assertStatements(1);
+    }
+
+    private StatementCounter startCounting() {
+        return new StatementCounter(entityManager.getEntityManager()).start();
+    }
+
+    private Book persistBook(String title, String isbn) {
+        Book book = createNewBook();
+        book.setTitle(title);
+        book.setIsbn(isbn);
+        return entityManager.persist(book);
+    }
+
     private Book createNewBook() {
         return Book.builder().title("Aventuras").author("Fulano").isbn("123").build();
     }
@@ -0,0 +1,170 @@
+package com.cvieira.libraryapi.model.repository;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.service.BookService;
+import com.cvieira.libraryapi.service.impl.BookSearchIndex;
+import com.cvieira.libraryapi.service.impl.BookServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * O cache de segundo nível só recebe o que foi confirmado, então aqui cada chamada ao repositório
+ * roda na própria transação em vez da transação do teste.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({BookServiceImpl.class, BookSearchIndex.class, NoOpCacheManager.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookSecondLevelCacheTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BookService bookService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAllInBatch();
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve obter o livro pelo id do cache de segundo nível")
+    public void findByIdFromCache() {
+        Book book = repository.save(createBook("123"));
+        repository.findById(book.getId());
+        statistics.clear();
+
+        Assertions.assertTrue(repository.findById(book.getId()).isPresent());
+
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Deve usar o cache de consultas ao buscar e verificar o isbn")
+    public void isbnLookupsFromQueryCache() {
+        repository.save(createBook("123"));
+        repository.findByIsbn("123");
+        repository.existsByIsbn("123");
+        statistics.clear();
+
+        Assertions.assertTrue(repository.findByIsbn("123").isPresent());
+        Assertions.assertTrue(repository.existsByIsbn("123"));
+
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(2, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache de consultas quando um livro for alterado")
+    public void queryCacheInvalidatedOnUpdate() {
+        Book book = repository.save(createBook("123"));
+        repository.findByIsbn("123");
+
+        book.setIsbn("456");
+        repository.save(book);
+
+        Assertions.assertFalse(repository.findByIsbn("123").isPresent());
+        Assertions.assertTrue(repository.findByIsbn("456").isPresent());
+    }
+
+    @Test
+    @DisplayName("Deve alterar só a entrada do livro emprestado no cache, mantendo os demais livros")
+    public void updateOnLoanKeepsOtherBooksCached() {
+        Book loaned = repository.save(createBook("123"));
+        Book other = repository.save(createBook("456"));
+        repository.findById(loaned.getId());
+        repository.findById(other.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                repository.findById(loaned.getId()).get().setOnLoan(true));
+        statistics.clear();
+
+        Assertions.assertFalse(repository.findById(other.getId()).get().getOnLoan());
+        Assertions.assertTrue(repository.findById(loaned.getId()).get().getOnLoan());
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(2, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Deve carregar os livros dos empréstimos pelo cache de segundo nível")
+    public void loanBooksFromCache() {
+        for (int i = 0; i < 3; i++) {
+            Book book = repository.save(createBook("isbn-" + i));
+            loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        }
+        loanRepository.findByLoanDateLessThanAndNotReturned(LocalDate.now());
+        statistics.clear();
+
+        List<Loan> loans = loanRepository.findByLoanDateLessThanAndNotReturned(LocalDate.now());
+
+        Assertions.assertEquals(3, loans.size());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Não deve levar ao cache de segundo nível os livros percorridos pela exportação")
+    public void exportSkipsSecondLevelCache() {
+        for (int i = 0; i < 3; i++) {
+            repository.save(createBook("isbn-" + i));
+        }
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+
+        List<Book> exported = new ArrayList<>();
+        bookService.exportAll(exported::add);
+
+        Assertions.assertEquals(3, exported.size());
+        Assertions.assertEquals(0, statistics.getSecondLevelCachePutCount());
+        Assertions.assertFalse(sessionFactory.getCache().containsEntity(Book.class, exported.get(0).getId()));
+    }
+
+    private Book createBook(String isbn) {
+        return Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build();
+    }
+}
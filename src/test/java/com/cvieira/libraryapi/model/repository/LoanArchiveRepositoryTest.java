@@ -0,0 +1,85 @@
+package com.cvieira.libraryapi.model.repository;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.model.entity.LoanArchive;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanArchiveRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LoanArchiveRepository archiveRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve mover para o arquivo apenas os empréstimos devolvidos")
+    public void copyAndDeleteReturned() {
+        Book book = persistBook("123");
+        Loan returned = persistLoan(book, true);
+        Loan active = persistLoan(book, false);
+        entityManager.flush();
+
+        List<Long> ids = Arrays.asList(returned.getId(), active.getId());
+        int copied = archiveRepository.copyReturned(ids);
+        int deleted = loanRepository.deleteReturned(ids);
+        entityManager.clear();
+
+        Assertions.assertEquals(1, copied);
+        Assertions.assertEquals(1, deleted);
+        LoanArchive archived = archiveRepository.findById(returned.getId()).get();
+        Assertions.assertEquals(book.getId(), archived.getBookId());
+        Assertions.assertEquals("Fulano", archived.getCustomer());
+        Assertions.assertEquals(returned.getReturnDate(), archived.getReturnDate());
+        Assertions.assertNull(entityManager.find(Loan.class, returned.getId()));
+        Assertions.assertNotNull(entityManager.find(Loan.class, active.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve obter os empréstimos arquivados do livro a partir de qualquer deslocamento")
+    public void findByBookIdWithOffset() {
+        Book book = persistBook("123");
+        Book other = persistBook("456");
+        for (long id = 1; id <= 5; id++) {
+            entityManager.persist(LoanArchive.builder().id(id).bookId(book.getId()).customer("Fulano").build());
+        }
+        entityManager.persist(LoanArchive.builder().id(6l).bookId(other.getId()).customer("Fulano").build());
+
+        List<LoanArchive> result = archiveRepository.findByBookId(book.getId(), 1, 3);
+
+        Assertions.assertEquals(Arrays.asList(4l, 3l, 2l),
+                result.stream().map(LoanArchive::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(5, archiveRepository.countByBookId(book.getId()));
+        Assertions.assertEquals(Arrays.asList(6l), archiveRepository.findExistingIds(Arrays.asList(6l, 7l)));
+    }
+
+    private Book persistBook(String isbn) {
+        return entityManager.persist(Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build());
+    }
+
+    private Loan persistLoan(Book book, boolean returned) {
+        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now().minusDays(100))
+                .returned(returned).build();
+        return entityManager.persist(loan);
+    }
+}
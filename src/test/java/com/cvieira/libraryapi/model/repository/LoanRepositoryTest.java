@@ -2,6 +2,7 @@ package com.cvieira.libraryapi.model.repository;
 
 import com.cvieira.libraryapi.model.entity.Book;
 import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.support.StatementCounter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,12 +10,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 @ExtendWith(SpringExtension.class)
@@ -74,12 +77,178 @@ public class LoanRepositoryTest {
         Assertions.assertTrue(result.isEmpty());
     }
 
+    @Test
+    @DisplayName("Deve obter os empréstimos atrasados em blocos a partir do último id lido")
+    public void findLateLoansAfter() {
+        Loan first = createAndPersistLoan(LocalDate.now().minusDays(5), "123");
+        Loan second = createAndPersistLoan(LocalDate.now().minusDays(6), "456");
+        createAndPersistLoan(LocalDate.now(), "789");
+
+        List<Loan> firstChunk = loanRepository.findLateLoansAfter(LocalDate.now().minusDays(4), 0l, PageRequest.of(0, 1));
+        List<Loan> secondChunk = loanRepository.findLateLoansAfter(
+                LocalDate.now().minusDays(4), firstChunk.get(0).getId(), PageRequest.of(0, 1));
+        List<Loan> lastChunk = loanRepository.findLateLoansAfter(
+                LocalDate.now().minusDays(4), secondChunk.get(0).getId(), PageRequest.of(0, 1));
+
+        Assertions.assertEquals(first, firstChunk.get(0));
+        Assertions.assertEquals(second, secondChunk.get(0));
+        Assertions.assertTrue(lastChunk.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos e seus livros em um único comando por página")
+    public void findLoanByBookOrCustomerStatementCount() {
+        createAndPersistLoan(LocalDate.now(), "123");
+        createAndPersistLoan(LocalDate.now(), "456");
+        createAndPersistLoan(LocalDate.now(), "789");
+        StatementCounter statements = startCounting();
+
+        Page<Loan> result = loanRepository.findByBookIsbnOrCustomer(null, "Fulano", PageRequest.of(0, 10));
+        result.getContent().forEach(loan -> loan.getBook().getTitle());
+
+        Assertions.assertEquals(3, result.getContent().size());
+        statements.assertStatements(1);
+
+        statements.start();
+        Page<Loan> firstPage = loanRepository.findByBookIsbnOrCustomer(null, "Fulano", PageRequest.of(0, 2));
+        firstPage.getContent().forEach(loan -> loan.getBook().getTitle());
+
+        Assertions.assertEquals(3, firstPage.getTotalElements());
+        statements.assertStatements(2);
+    }
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos de um livro junto com o livro")
+    public void findByBookStatementCount() {
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        StatementCounter statements = startCounting();
+
+        Page<Loan> result = loanRepository.findByBook(loan.getBook(), PageRequest.of(0, 10));
+        result.getContent().forEach(found -> found.getBook().getTitle());
+
+        Assertions.assertEquals(1, result.getContent().size());
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve devolver os empréstimos em um único comando")
+    public void markReturned() {
+        Loan first = createAndPersistLoan(LocalDate.now(), "123");
+        Loan second = createAndPersistLoan(LocalDate.now(), "456");
+        Loan returned = createAndPersistLoan(LocalDate.now(), "789");
+        returned.setReturned(true);
+        StatementCounter statements = startCounting();
+
+        int updated = loanRepository.markReturned(Arrays.asList(first.getId(), second.getId(), returned.getId()));
+
+        Assertions.assertEquals(2, updated);
+        statements.assertStatements(1);
+        Assertions.assertTrue(entityManager.find(Loan.class, first.getId()).isReturned());
+        Assertions.assertTrue(entityManager.find(Loan.class, second.getId()).isReturned());
+        Assertions.assertEquals(LocalDate.now(), entityManager.find(Loan.class, first.getId()).getReturnDate());
+    }
+
+    @Test
+    @DisplayName("Deve reabrir apenas empréstimos devolvidos")
+    public void reopen() {
+        Loan returned = createAndPersistLoan(LocalDate.now(), "123");
+        returned.setReturned(true);
+        Loan open = createAndPersistLoan(LocalDate.now(), "456");
+        entityManager.flush();
+
+        Assertions.assertEquals(1, loanRepository.reopen(returned.getId(), returned.getBook().getId()));
+        Assertions.assertEquals(0, loanRepository.reopen(open.getId(), open.getBook().getId()));
+
+        Loan reopened = entityManager.find(Loan.class, returned.getId());
+        Assertions.assertFalse(reopened.isReturned());
+        Assertions.assertNull(reopened.getReturnDate());
+        Assertions.assertEquals(returned.getBook().getId(), reopened.getActiveBookId());
+    }
+
+    @Test
+    @DisplayName("Não deve reabrir o empréstimo quando o livro tiver outro empréstimo em aberto")
+    public void rejectReopenOfLoanedBook() {
+        Loan returned = createAndPersistLoan(LocalDate.now());
+        returned.setReturned(true);
+        entityManager.flush();
+        entityManager.persist(Loan.builder().book(returned.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> loanRepository.reopen(returned.getId(), returned.getBook().getId()));
+    }
+
+    @Test
+    @DisplayName("Deve obter os empréstimos devolvidos antes da data informada para arquivamento")
+    public void findArchivableIds() {
+        Loan old = createAndPersistLoan(LocalDate.now().minusDays(120), "123");
+        old.setReturned(true);
+        old.setReturnDate(LocalDate.now().minusDays(100));
+        Loan recent = createAndPersistLoan(LocalDate.now().minusDays(10), "456");
+        recent.setReturned(true);
+        createAndPersistLoan(LocalDate.now().minusDays(120), "789");
+        entityManager.flush();
+
+        List<Long> ids = loanRepository.findArchivableIds(LocalDate.now().minusDays(90), PageRequest.of(0, 10));
+
+        Assertions.assertEquals(Arrays.asList(old.getId()), ids);
+        Assertions.assertEquals(LocalDate.now(), recent.getReturnDate());
+    }
+
+    @Test
+    @DisplayName("Deve buscar a situação dos empréstimos ativos pelo isbn")
+    public void findActiveStatusByIsbns() {
+        Loan active = createAndPersistLoan(LocalDate.now(), "123");
+        Loan returned = createAndPersistLoan(LocalDate.now(), "456");
+        returned.setReturned(true);
+        startCounting();
+
+        List<LoanStatus> result = loanRepository.findActiveStatusByIsbns(Arrays.asList("123", "456", "789"));
+
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(active.getId(), result.get(0).getId());
+        Assertions.assertEquals(active.getBook().getId(), result.get(0).getBookId());
+        Assertions.assertEquals("123", result.get(0).getIsbn());
+    }
+
+    @Test
+    @DisplayName("Não deve permitir dois empréstimos em aberto do mesmo livro")
+    public void rejectSecondActiveLoan() {
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        Loan second = Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build();
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> loanRepository.save(second));
+    }
+
+    @Test
+    @DisplayName("Deve permitir um novo empréstimo do livro depois da devolução")
+    public void loanAfterReturn() {
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        loan.setReturned(true);
+        entityManager.flush();
+
+        Loan second = loanRepository.save(
+                Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build());
+
+        Assertions.assertNull(loan.getActiveBookId());
+        Assertions.assertEquals(loan.getBook().getId(), second.getActiveBookId());
+    }
+
+    private StatementCounter startCounting() {
+        return new StatementCounter(entityManager.getEntityManager()).start();
+    }
+
     private Book createNewBook() {
         return Book.builder().title("Aventuras").author("Fulano").isbn("123").build();
     }
 
     private Loan createAndPersistLoan(LocalDate loanDate) {
+        return createAndPersistLoan(loanDate, "123");
+    }
+
+    private Loan createAndPersistLoan(LocalDate loanDate, String isbn) {
         Book book = createNewBook();
+        book.setIsbn(isbn);
         entityManager.persist(book);
 
         Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).build();
@@ -0,0 +1,212 @@
+package com.cvieira.libraryapi.resource;
+
+import com.cvieira.libraryapi.config.CacheConfig;
+import com.cvieira.libraryapi.dto.LoanReturnRequestDTO;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.support.StatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Número de comandos SQL de cada endpoint, executando a pilha inteira sobre o H2.
+ * Um aumento aqui costuma ser uma associação carregada sob demanda ou uma consulta a mais por item.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "application.loans.active-index.reconcile-ms=3600000",
+        "spring.boot.admin.client.enabled=false"
+})
+@AutoConfigureMockMvc
+@Transactional
+public class ApiStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Book book;
+    private Loan loan;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCache(CacheConfig.BOOKS_BY_ID).clear();
+        cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).clear();
+        cacheManager.getCache(CacheConfig.BOOK_VERSIONS).clear();
+
+        book = persistBook("As aventuras", "001");
+        persistBook("As viagens", "002");
+        persistBook("O jardim", "003");
+        loan = Loan.builder().book(book).customer("Fulano").customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now()).build();
+        entityManager.persist(loan);
+        book.setOnLoan(true);
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Deve obter um livro com um comando")
+    public void getBook() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 consultando apenas a versão do livro")
+    public void getBookNotModified() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + book.getVersion() + "\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros com um comando para a página e outro para o total")
+    public void findBooks() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books?title=as&page=0&size=1"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        statements.assertStatements(2);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total com um comando")
+    public void findBooksWithoutCount() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books?title=as&page=0&size=1&count=none"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar os livros disponíveis com um comando, sem consultar os empréstimos")
+    public void findAvailableBooks() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books?available=true&page=0&size=10&count=none"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("content[0].available").value(true));
+
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os livros por cursor com um comando")
+    public void scrollBooks() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/scroll?sort=title&size=2"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve listar os empréstimos de um livro, completando a página com o arquivo, sem um comando por empréstimo")
+    public void loansByBook() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId() + "/loans?page=0&size=10"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        statements.assertStatements(3);
+    }
+
+    @Test
+    @DisplayName("Deve consultar a disponibilidade dos livros sem acessar a base")
+    public void booksAvailability() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/availability?ids=" + book.getId()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        statements.assertStatements(0);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos e seus livros com um comando")
+    public void findLoans() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/loans?customer=Fulano&page=0&size=10"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os empréstimos por cursor com um comando")
+    public void scrollLoans() throws Exception {
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/loans/scroll?customer=Fulano&size=10"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        statements.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote com uma atualização dos empréstimos e uma consulta e atualização dos livros")
+    public void returnLoans() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(
+                LoanReturnRequestDTO.builder().ids(Arrays.asList(loan.getId())).build());
+        StatementCounter statements = startCounting();
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/loans/returns")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        // a alteração do livro só é enviada na confirmação, que aqui é da transação do teste
+        entityManager.flush();
+
+        statements.assertStatements(4);
+    }
+
+    private StatementCounter startCounting() {
+        return new StatementCounter(entityManager).start();
+    }
+
+    private Book persistBook(String title, String isbn) {
+        Book saved = Book.builder().title(title).author("Fulano").isbn(isbn).build();
+        entityManager.persist(saved);
+        return saved;
+    }
+}
@@ -1,5 +1,6 @@
 package com.cvieira.libraryapi.resource;
 
+import com.cvieira.libraryapi.api.Cursor;
 import com.cvieira.libraryapi.dto.BookDTO;
 import com.cvieira.libraryapi.exception.BusinessException;
 import com.cvieira.libraryapi.model.entity.Book;
@@ -19,17 +20,24 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.client.RequestMatcher;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -119,7 +127,7 @@ public class BookControllerTest {
     public void getBookDetails() throws Exception {
         //Cenário
         Long id = 1l;
-        Book book = Book.builder().id(id).author("Artur").title("As aventuras").isbn("001").build();
+        Book book = Book.builder().id(id).author("Artur").title("As aventuras").isbn("001").version(0l).build();
         BDDMockito.given(bookService.getById(id)).willReturn(Optional.of(book));
 
         //Execução
@@ -133,7 +141,48 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("id").value(id))
                 .andExpect(MockMvcResultMatchers.jsonPath("title").value(book.getTitle()))
                 .andExpect(MockMvcResultMatchers.jsonPath("author").value(book.getAuthor()))
-                .andExpect(MockMvcResultMatchers.jsonPath("isbn").value(book.getIsbn()));
+                .andExpect(MockMvcResultMatchers.jsonPath("isbn").value(book.getIsbn()))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"0\""));
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 sem carregar o livro quando a versão não mudou")
+    public void getBookNotModified() throws Exception {
+        Long id = 1l;
+        BDDMockito.given(bookService.getVersion(id)).willReturn(Optional.of(3l));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + id))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        Mockito.verify(bookService, Mockito.never()).getById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar o livro quando a versão informada estiver desatualizada")
+    public void getBookModified() throws Exception {
+        Long id = 1l;
+        Book book = Book.builder().id(id).author("Artur").title("As aventuras").isbn("001").version(4l).build();
+        BDDMockito.given(bookService.getVersion(id)).willReturn(Optional.of(4l));
+        BDDMockito.given(bookService.getById(id)).willReturn(Optional.of(book));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + id))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value(id))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\""));
     }
 
     @Test
@@ -215,6 +264,28 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("isbn").value(updatedBook.getIsbn()));
     }
 
+    @Test
+    @DisplayName("Deve retornar 409 ao atualizar um livro alterado por outra requisição")
+    public void updateConcurrentlyModifiedBook() throws Exception {
+        Long id = 1l;
+        String json = new ObjectMapper().writeValueAsString(createNewBook());
+        Book updatingBook = Book.builder().id(id).title("some title").author("some author").isbn("321").build();
+        BDDMockito.given(bookService.getById(id)).willReturn(Optional.of(updatingBook));
+        BDDMockito.given(bookService.update(updatingBook))
+                .willThrow(new ObjectOptimisticLockingFailureException(Book.class, id));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/" + id))
+                .content(json)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Registro alterado por outra requisição"));
+    }
+
     @Test
     @DisplayName("Deve retornar 404 ao tentar atualizar um livro inexistente")
     public void updateInexistentBook() throws Exception {
@@ -260,9 +331,154 @@ public class BookControllerTest {
         mockMvc.perform(request)
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
-                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1))
-                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageSize").value(100))
-                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0));
+                .andExpect(MockMvcResultMatchers.jsonPath("total").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("next").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("pageable").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar os livros disponíveis pela marcação de empréstimo do livro")
+    public void findAvailableBooks() throws Exception {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").onLoan(false).build();
+
+        BDDMockito.given(bookService.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), false));
+
+        MockHttpServletRequestBuilder request =  MockMvcRequestBuilders
+                .get(BOOK_API.concat("?available=true&page=0&size=10&count=none"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content[0].available").value(true));
+
+        Mockito.verify(bookService).findSlice(
+                Mockito.argThat(filter -> Boolean.FALSE.equals(filter.getOnLoan())), Mockito.any(Pageable.class));
+        Mockito.verifyNoInteractions(loanService);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total")
+    public void findBooksWithoutCount() throws Exception {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").build();
+
+        BDDMockito.given(bookService.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        MockHttpServletRequestBuilder request =  MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=aventuras&page=0&size=1&count=none"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("next").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("total").doesNotExist());
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os livros por cursor")
+    public void scrollBooks() throws Exception {
+        Book first = Book.builder().id(1l).title("A casa").author("Artur").isbn("001").build();
+        Book second = Book.builder().id(2l).title("B jardim").author("Artur").isbn("002").build();
+
+        BDDMockito.given(bookService.findAfterId(0l, 2))
+                .willReturn(Arrays.asList(first, second));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/scroll?size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("content[0].id").value(1l))
+                .andExpect(MockMvcResultMatchers.jsonPath("next").value(new Cursor("id", 1l, null).encode()));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao receber um cursor inválido")
+    public void scrollBooksWithInvalidCursor() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/scroll?after=invalido"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve informar a disponibilidade dos livros")
+    public void booksAvailability() throws Exception {
+        Map<Long, Boolean> availability = new LinkedHashMap<>();
+        availability.put(1l, true);
+        availability.put(2l, false);
+        BDDMockito.given(loanService.getAvailability(Arrays.asList(1l, 2l))).willReturn(availability);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/availability?ids=1,2"))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("['1']").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("['2']").value(false));
+
+        Mockito.verify(bookService, Mockito.never()).getById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve exportar o acervo em csv")
+    public void exportBooksAsCsv() throws Exception {
+        Book first = Book.builder().id(1l).title("A casa, o jardim").author("Artur").isbn("001").build();
+        Book second = Book.builder().id(2l).title("O \"livro\"").author("Artur").isbn("002").build();
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(bookService).exportAll(Mockito.any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=csv")))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("Content-Type", Matchers.startsWith("text/csv")))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "id,title,author,isbn\n" +
+                        "1,\"A casa, o jardim\",Artur,001\n" +
+                        "2,\"O \"\"livro\"\"\",Artur,002\n"));
+    }
+
+    @Test
+    @DisplayName("Deve exportar o acervo em ndjson")
+    public void exportBooksAsNdjson() throws Exception {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").onLoan(false).build();
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(book);
+            return null;
+        }).when(bookService).exportAll(Mockito.any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export")))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "{\"id\":1,\"title\":\"As aventuras\",\"author\":\"Artur\",\"isbn\":\"001\",\"available\":true}\n"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao exportar em formato desconhecido")
+    public void exportBooksWithInvalidFormat() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=xml")))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
     private BookDTO createNewBook() {
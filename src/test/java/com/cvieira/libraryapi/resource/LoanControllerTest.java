@@ -1,6 +1,8 @@
 package com.cvieira.libraryapi.resource;
 
 import com.cvieira.libraryapi.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.dto.LoanReturnRequestDTO;
+import com.cvieira.libraryapi.dto.LoanReturnResultDTO;
 import com.cvieira.libraryapi.dto.ReturnedLoadDTO;
 import com.cvieira.libraryapi.dto.LoanDTO;
 import com.cvieira.libraryapi.exception.BusinessException;
@@ -10,6 +12,7 @@ import com.cvieira.libraryapi.service.BookService;
 import com.cvieira.libraryapi.service.LoanService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +25,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -130,7 +134,9 @@ public class LoanControllerTest {
             .content(json)
             ).andExpect(MockMvcResultMatchers.status().isOk());
 
-        Mockito.verify(loanService, Mockito.times(1)).update(loan);
+        Mockito.verify(loanService, Mockito.times(1))
+                .update(Mockito.argThat(changed -> changed.getId().equals(1l) && changed.isReturned()));
+        Assertions.assertFalse(loan.isReturned());
     }
 
     @Test
@@ -150,6 +156,47 @@ public class LoanControllerTest {
     }
 
 
+    @Test
+    @DisplayName("Deve devolver vários empréstimos de uma vez")
+    public void returnAll() throws Exception {
+        LoanReturnRequestDTO dto = LoanReturnRequestDTO.builder()
+                .ids(Arrays.asList(1l, 2l, 3l))
+                .isbns(Arrays.asList("123"))
+                .build();
+        LoanReturnResultDTO result = LoanReturnResultDTO.builder()
+                .returned(2)
+                .notFound(Arrays.asList(3l))
+                .alreadyReturned(Arrays.asList(2l))
+                .isbnsNotLoaned(Arrays.asList())
+                .build();
+        BDDMockito.given(loanService.returnAll(dto.getIds(), dto.getIsbns())).willReturn(result);
+
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(LOAN_API.concat("/returns"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json)
+        ).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("returned").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("notFound[0]").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("alreadyReturned[0]").value(2));
+
+        Mockito.verify(loanService, Mockito.never()).update(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao devolver empréstimos sem informar ids ou isbns")
+    public void returnAllWithoutIds() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(new LoanReturnRequestDTO());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(LOAN_API.concat("/returns"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json)
+        ).andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Deve filtrar empréstimos")
     public void findLoans() throws Exception {
@@ -172,9 +219,69 @@ public class LoanControllerTest {
         mockMvc.perform(request)
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
-                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1))
-                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageSize").value(100))
-                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0));
+                .andExpect(MockMvcResultMatchers.jsonPath("total").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("next").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("pageable").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos sem contar o total")
+    public void findLoansWithoutCount() throws Exception {
+        Loan loan = createLoanEntity();
+        loan.setId(1l);
+
+        BDDMockito.given(loanService.findSlice(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 1), true));
+
+        MockHttpServletRequestBuilder request =  MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=fulano&page=0&size=1&count=none"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("next").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("total").doesNotExist());
+
+        Mockito.verify(loanService, Mockito.never()).find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class));
+        Mockito.verify(loanService, Mockito.never()).estimateCount(Mockito.any(LoanFilterDTO.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos com o total estimado")
+    public void findLoansWithEstimatedCount() throws Exception {
+        Loan loan = createLoanEntity();
+        loan.setId(1l);
+
+        BDDMockito.given(loanService.findSlice(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 1), true));
+        BDDMockito.given(loanService.estimateCount(Mockito.any(LoanFilterDTO.class))).willReturn(42l);
+
+        MockHttpServletRequestBuilder request =  MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=fulano&page=0&size=1&count=estimate"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("next").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("total").value(42));
+
+        Mockito.verify(loanService).estimateCount(Mockito.argThat(filter -> "fulano".equals(filter.getCustomer())));
+        Mockito.verify(loanService, Mockito.never()).find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao filtrar empréstimos com modo de contagem desconhecido")
+    public void findLoansWithInvalidCount() throws Exception {
+        MockHttpServletRequestBuilder request =  MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=fulano&count=aproximado"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(loanService);
     }
 
     public Loan createLoanEntity() {
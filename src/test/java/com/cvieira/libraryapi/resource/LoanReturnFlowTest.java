@@ -0,0 +1,120 @@
+package com.cvieira.libraryapi.resource;
+
+import com.cvieira.libraryapi.dto.BookDTO;
+import com.cvieira.libraryapi.dto.LoanDTO;
+import com.cvieira.libraryapi.dto.ReturnedLoadDTO;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+/**
+ * Devolução e novo empréstimo pela pilha inteira, com o open-in-view ligado como na aplicação:
+ * cada requisição confirma a própria transação, então o índice de empréstimos ativos também é exercitado.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=true",
+        "application.loans.active-index.reconcile-ms=3600000",
+        "spring.boot.admin.client.enabled=false"
+})
+@AutoConfigureMockMvc
+public class LoanReturnFlowTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro ao devolver o empréstimo e permitir emprestá-lo de novo")
+    public void returnThenLendAgain() throws Exception {
+        Long bookId = createBook("001");
+        Long loanId = lend("001", "Fulano");
+
+        mockMvc.perform(json(MockMvcRequestBuilders.patch("/api/loans/" + loanId),
+                        ReturnedLoadDTO.builder().returned(true).build()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/" + bookId))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("available").value(true));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/availability?ids=" + bookId))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("['" + bookId + "']").value(true));
+
+        lend("001", "Ciclano");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/" + bookId))
+                .andExpect(MockMvcResultMatchers.jsonPath("available").value(false));
+    }
+
+    @Test
+    @DisplayName("Deve reabrir um empréstimo devolvido marcando o livro como emprestado")
+    public void returnThenReopen() throws Exception {
+        Long bookId = createBook("002");
+        Long loanId = lend("002", "Fulano");
+
+        mockMvc.perform(json(MockMvcRequestBuilders.patch("/api/loans/" + loanId),
+                        ReturnedLoadDTO.builder().returned(true).build()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(json(MockMvcRequestBuilders.patch("/api/loans/" + loanId),
+                        ReturnedLoadDTO.builder().returned(false).build()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/" + bookId))
+                .andExpect(MockMvcResultMatchers.jsonPath("available").value(false));
+        mockMvc.perform(json(MockMvcRequestBuilders.post("/api/loans"),
+                        LoanDTO.builder().isbn("002").customer("Ciclano").build()))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    private Long createBook(String isbn) throws Exception {
+        BookDTO book = BookDTO.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
+        String body = mockMvc.perform(json(MockMvcRequestBuilders.post("/api/books"), book))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, BookDTO.class).getId();
+    }
+
+    private Long lend(String isbn, String customer) throws Exception {
+        String body = mockMvc.perform(json(MockMvcRequestBuilders.post("/api/loans"),
+                        LoanDTO.builder().isbn(isbn).customer(customer).build()))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return Long.valueOf(body);
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body));
+    }
+}
@@ -0,0 +1,99 @@
+package com.cvieira.libraryapi.service;
+
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.service.impl.BookSearchIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookSearchIndex(Mockito.mock(BookRepository.class));
+        index.index(createBook(1l, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "001"));
+        index.index(createBook(2l, "Dom Casmurro", "Machado de Assis", "002"));
+        index.index(createBook(3l, "O Cortiço", "Aluísio Azevedo", "003"));
+        index.index(createBook(4l, "Casa de Pensão", "Aluísio Azevedo", "004"));
+    }
+
+    @Test
+    @DisplayName("Deve encontrar livros por parte de uma palavra, sem diferenciar acentos e maiúsculas")
+    public void searchBySubstring() {
+        Assertions.assertEquals(Arrays.asList(3l), index.search("CORTICO", 10));
+        Assertions.assertEquals(Arrays.asList(1l), index.search("postum", 10));
+    }
+
+    @Test
+    @DisplayName("Deve exigir todos os termos da busca")
+    public void searchByAllTerms() {
+        Assertions.assertEquals(Arrays.asList(2l), index.search("casmurro machado", 10));
+        Assertions.assertEquals(Collections.emptyList(), index.search("casmurro azevedo", 10));
+    }
+
+    @Test
+    @DisplayName("Deve ordenar por relevância, priorizando o título")
+    public void rankByRelevance() {
+        index.index(createBook(5l, "Antologia", "Casimiro Casa", "005"));
+        index.index(createBook(6l, "Casarão", "Fulano", "006"));
+
+        Assertions.assertEquals(Arrays.asList(4l, 6l, 5l), index.search("casa", 10));
+    }
+
+    @Test
+    @DisplayName("Deve preferir a palavra exata a um prefixo que aparece antes no mesmo campo")
+    public void exactTokenAfterPrefix() {
+        index.index(createBook(5l, "Casarão Antigo", "Fulano", "005"));
+        index.index(createBook(6l, "Casarão Casa", "Fulano", "006"));
+
+        Assertions.assertEquals(Arrays.asList(4l, 6l, 5l), index.search("casa", 10));
+    }
+
+    @Test
+    @DisplayName("Não deve percorrer o acervo quando nenhum termo tiver ao menos três caracteres")
+    public void shortTermsOnly() {
+        Assertions.assertEquals(Collections.emptyList(), index.search("de", 10));
+        Assertions.assertEquals(Collections.emptyList(), index.search("o d", 10));
+        Assertions.assertEquals(Arrays.asList(1l, 2l), index.search("machado de", 10));
+    }
+
+    @Test
+    @DisplayName("Deve refletir atualizações e remoções de livros")
+    public void updateAndRemove() {
+        index.index(createBook(2l, "Quincas Borba", "Machado de Assis", "002"));
+        index.remove(3l);
+
+        Assertions.assertEquals(Collections.emptyList(), index.search("casmurro", 10));
+        Assertions.assertEquals(Arrays.asList(2l), index.search("quincas", 10));
+        Assertions.assertEquals(Collections.emptyList(), index.search("cortiço", 10));
+        Assertions.assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Deve cruzar termos comuns e raros com livros indexados fora da ordem dos ids")
+    public void intersectPostingsOutOfOrder() {
+        for (long id = 200; id > 10; id--) {
+            index.index(createBook(id, "Contos " + id, "Machado de Assis", "isbn-" + id));
+        }
+        index.index(createBook(7l, "Contos Fluminenses", "Machado de Assis", "007"));
+        index.index(createBook(150l, "Contos Fluminenses", "Machado de Assis", "150"));
+        index.remove(100l);
+
+        Assertions.assertEquals(Arrays.asList(7l, 150l), index.search("machado fluminenses contos", 10));
+        Assertions.assertEquals(Arrays.asList(1l, 2l), index.search("machado assis", 2));
+        Assertions.assertEquals(Collections.emptyList(), index.search("isbn-100", 10));
+        Assertions.assertEquals(Arrays.asList(99l, 199l), index.search("isbn-99", 10));
+    }
+
+    private Book createBook(Long id, String title, String author, String isbn) {
+        return Book.builder().id(id).title(title).author(author).isbn(isbn).build();
+    }
+}
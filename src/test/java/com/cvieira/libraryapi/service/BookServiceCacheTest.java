@@ -0,0 +1,178 @@
+package com.cvieira.libraryapi.service;
+
+import com.cvieira.libraryapi.config.CacheConfig;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.service.impl.BookSearchIndex;
+import com.cvieira.libraryapi.service.impl.BookServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@ContextConfiguration(classes = BookServiceCacheTest.Config.class)
+public class BookServiceCacheTest {
+
+    @Configuration
+    @Import({CacheConfig.class, BookServiceImpl.class, BookSearchIndex.class})
+    static class Config {
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.BOOKS_BY_ID, CacheConfig.BOOKS_BY_ISBN, CacheConfig.BOOK_VERSIONS);
+        }
+    }
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    BookRepository repository;
+
+    @MockBean
+    EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCache(CacheConfig.BOOKS_BY_ID).clear();
+        cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).clear();
+        cacheManager.getCache(CacheConfig.BOOK_VERSIONS).clear();
+    }
+
+    @Test
+    @DisplayName("Deve consultar a base apenas uma vez ao obter o mesmo livro pelo isbn")
+    public void cachedBookByIsbn() {
+        String isbn = "123";
+        Mockito.when(repository.findByIsbn(isbn)).thenReturn(Optional.of(createValidBook(1l, isbn)));
+
+        bookService.getBookByIsbn(isbn);
+        Optional<Book> book = bookService.getBookByIsbn(isbn);
+
+        Assertions.assertTrue(book.isPresent());
+        Assertions.assertEquals(isbn, book.get().getIsbn());
+        Mockito.verify(repository, Mockito.times(1)).findByIsbn(isbn);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar em cache um livro inexistente")
+    public void notCachedWhenBookNotFound() {
+        Long id = 1l;
+        Mockito.when(repository.findById(id)).thenReturn(Optional.empty());
+
+        bookService.getById(id);
+        Optional<Book> book = bookService.getById(id);
+
+        Assertions.assertFalse(book.isPresent());
+        Mockito.verify(repository, Mockito.times(2)).findById(id);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao atualizar um livro")
+    public void evictOnUpdate() {
+        Long id = 1l;
+        Book book = createValidBook(id, "123");
+        Mockito.when(repository.findById(id)).thenReturn(Optional.of(book));
+        Mockito.when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+        Mockito.when(repository.save(book)).thenReturn(book);
+
+        bookService.getById(id);
+        bookService.getBookByIsbn("123");
+        bookService.update(book);
+        bookService.getById(id);
+        bookService.getBookByIsbn("123");
+
+        Mockito.verify(repository, Mockito.times(2)).findById(id);
+        Mockito.verify(repository, Mockito.times(2)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Deve guardar em cache uma cópia que não muda quando o livro retornado é alterado")
+    public void cachedCopyOfBook() {
+        Long id = 1l;
+        Mockito.when(repository.findById(id)).thenReturn(Optional.of(createValidBook(id, "123")));
+
+        bookService.getById(id).get().setTitle("Outro título");
+        Book cached = bookService.getById(id).get();
+        cached.setTitle("Mais um título");
+
+        Assertions.assertEquals("As aventuras", bookService.getById(id).get().getTitle());
+        Assertions.assertNotSame(cached, bookService.getById(id).get());
+        Mockito.verify(repository, Mockito.times(1)).findById(id);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache apenas depois de confirmada a transação da atualização")
+    public void evictAfterCommit() {
+        Long id = 1l;
+        Book book = createValidBook(id, "123");
+        Mockito.when(repository.findById(id)).thenReturn(Optional.of(book));
+        Mockito.when(repository.save(book)).thenReturn(book);
+        bookService.getById(id);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookService.update(book);
+            Assertions.assertNotNull(cacheManager.getCache(CacheConfig.BOOKS_BY_ID).get(id));
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            Assertions.assertNull(cacheManager.getCache(CacheConfig.BOOKS_BY_ID).get(id));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao deletar um livro")
+    public void evictOnDelete() {
+        Long id = 1l;
+        Book book = createValidBook(id, "123");
+        Mockito.when(repository.findById(id)).thenReturn(Optional.of(book));
+
+        bookService.getById(id);
+        bookService.delete(book);
+        bookService.getById(id);
+
+        Mockito.verify(repository, Mockito.times(2)).findById(id);
+    }
+
+    @Test
+    @DisplayName("Deve guardar a versão em cache e invalidá-la ao atualizar o livro")
+    public void cachedVersionEvictedOnUpdate() {
+        Long id = 1l;
+        Book book = createValidBook(id, "123");
+        Mockito.when(repository.findVersionById(id)).thenReturn(Optional.of(0l));
+        Mockito.when(repository.save(book)).thenReturn(book);
+
+        bookService.getVersion(id);
+        Assertions.assertEquals(Optional.of(0l), bookService.getVersion(id));
+        bookService.update(book);
+        bookService.getVersion(id);
+
+        Mockito.verify(repository, Mockito.times(2)).findVersionById(id);
+    }
+
+    private Book createValidBook(Long id, String isbn) {
+        return Book.builder().id(id).isbn(isbn).author("Fulano").title("As aventuras").build();
+    }
+}
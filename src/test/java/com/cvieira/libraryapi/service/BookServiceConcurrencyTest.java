@@ -0,0 +1,90 @@
+package com.cvieira.libraryapi.service;
+
+import com.cvieira.libraryapi.exception.BusinessException;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.service.impl.BookSearchIndex;
+import com.cvieira.libraryapi.service.impl.BookServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    BookRepository repository;
+
+    BookService bookService;
+
+    ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        bookService = new BookServiceImpl(repository, new BookSearchIndex(repository), new NoOpCacheManager());
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar apenas um livro quando vários cadastros concorrentes usam o mesmo isbn")
+    public void concurrentCreatesWithSameIsbn() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < THREADS * 4; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookService.save(createBook("123"));
+                    return true;
+                } catch (BusinessException ex) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                created++;
+            }
+        }
+
+        Assertions.assertEquals(1, created);
+        Assertions.assertEquals(1, repository.count());
+    }
+
+    private Book createBook(String isbn) {
+        return Book.builder().isbn(isbn).author("Fulano").title("As aventuras").build();
+    }
+}
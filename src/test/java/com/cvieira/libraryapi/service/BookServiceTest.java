@@ -1,9 +1,12 @@
 package com.cvieira.libraryapi.service;
 
+import com.cvieira.libraryapi.dto.BookImportResultDTO;
 import com.cvieira.libraryapi.exception.BusinessException;
 import com.cvieira.libraryapi.model.entity.Book;
 import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.service.impl.BookSearchIndex;
 import com.cvieira.libraryapi.service.impl.BookServiceImpl;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +15,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -19,6 +24,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -34,7 +41,7 @@ public class BookServiceTest {
 
     @BeforeEach
     public void setUp() {
-        this.bookService = new BookServiceImpl(repository);
+        this.bookService = new BookServiceImpl(repository, new BookSearchIndex(repository), new NoOpCacheManager());
     }
 
     @Test
@@ -42,7 +49,7 @@ public class BookServiceTest {
     public void saveBookTest() {
         //Cenário
         Book book = createValidBook();
-        Mockito.when(repository.save(book)).thenReturn(
+        Mockito.when(repository.saveAndFlush(book)).thenReturn(
                 Book.builder().id(1l).isbn(book.getIsbn()).title(book.getTitle()).author(book.getAuthor()).build());
 
         //Execução
@@ -53,6 +60,7 @@ public class BookServiceTest {
         Assertions.assertEquals(book.getIsbn(), savedBook.getIsbn());
         Assertions.assertEquals(book.getTitle(), savedBook.getTitle());
         Assertions.assertEquals(book.getAuthor(), savedBook.getAuthor());
+        Mockito.verify(repository, Mockito.never()).existsByIsbn(book.getIsbn());
     }
 
     @Test
@@ -60,11 +68,38 @@ public class BookServiceTest {
     public void shouldNotSaveABookWithDuplicatedISBN() {
         //Cenário
         Book book = createValidBook();
-        Mockito.when(repository.existsByIsbn(book.getIsbn())).thenReturn(true);
+        ConstraintViolationException cause = new ConstraintViolationException(
+                "Unique index or primary key violation", new SQLException(), "PUBLIC.UK_BOOK_ISBN_INDEX_2 ON PUBLIC.BOOK(ISBN)");
+        Mockito.when(repository.saveAndFlush(book)).thenThrow(new DataIntegrityViolationException("duplicated", cause));
 
         //execução //Verificação
-        Assertions.assertThrows(BusinessException.class, () -> bookService.save(book));
-        Mockito.verify(repository, Mockito.never()).save(book);
+        BusinessException exception = Assertions.assertThrows(BusinessException.class, () -> bookService.save(book));
+        Assertions.assertEquals("ISBN já cadastrado", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Deve importar livros informando o resultado de cada um")
+    public void saveAllBooks() {
+        Book created = Book.builder().isbn("001").author("Fulano").title("As aventuras").build();
+        Book existing = Book.builder().isbn("002").author("Fulano").title("As aventuras").build();
+        Book repeated = Book.builder().isbn("001").author("Ciclano").title("Outro").build();
+        Book invalid = Book.builder().isbn("003").build();
+
+        Mockito.when(repository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Arrays.asList("002"));
+        Mockito.when(repository.saveAll(Arrays.asList(created))).thenAnswer(invocation -> {
+            created.setId(10l);
+            return Arrays.asList(created);
+        });
+
+        List<BookImportResultDTO> results = bookService.saveAll(Arrays.asList(created, existing, repeated, invalid));
+
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertEquals(BookImportResultDTO.Status.CREATED, results.get(0).getStatus());
+        Assertions.assertEquals(10l, results.get(0).getId());
+        Assertions.assertEquals(BookImportResultDTO.Status.DUPLICATED, results.get(1).getStatus());
+        Assertions.assertEquals(BookImportResultDTO.Status.DUPLICATED, results.get(2).getStatus());
+        Assertions.assertEquals(BookImportResultDTO.Status.INVALID, results.get(3).getStatus());
+        Mockito.verify(repository, Mockito.times(1)).findExistingIsbns(Mockito.anyCollection());
     }
 
     @Test
@@ -190,6 +225,49 @@ public class BookServiceTest {
         Assertions.assertEquals(10, result.getPageable().getPageSize());
     }
 
+    @Test
+    @DisplayName("Deve marcar os livros devolvidos em lotes")
+    public void updateOnLoanInBatches() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            ids.add(id);
+        }
+
+        Book book = Book.builder().id(2500l).onLoan(true).build();
+        Mockito.when(repository.findAllById(ids.subList(2000, 2500))).thenReturn(Arrays.asList(book));
+
+        bookService.updateOnLoan(ids, false);
+
+        Mockito.verify(repository, Mockito.times(3)).findAllById(Mockito.anyIterable());
+        Mockito.verify(repository, Mockito.never()).updateOnLoan(Mockito.anyCollection(), Mockito.anyBoolean());
+        Assertions.assertFalse(book.getOnLoan());
+    }
+
+    @Test
+    @DisplayName("Deve marcar o livro emprestado alterando a entidade gerenciada")
+    public void updateOnLoan() {
+        Book book = Book.builder().id(1l).onLoan(false).build();
+        Mockito.when(repository.findById(1l)).thenReturn(Optional.of(book));
+
+        bookService.updateOnLoan(Book.builder().id(1l).build(), true);
+
+        Assertions.assertTrue(book.getOnLoan());
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar o total estimado para o mesmo filtro")
+    public void estimateCount() {
+        Book filter = Book.builder().title("aventuras").build();
+        Mockito.when(repository.count(Mockito.any(Example.class))).thenReturn(42l);
+
+        long first = bookService.estimateCount(filter);
+        long second = bookService.estimateCount(Book.builder().title("aventuras").build());
+
+        Assertions.assertEquals(42l, first);
+        Assertions.assertEquals(42l, second);
+        Mockito.verify(repository, Mockito.times(1)).count(Mockito.any(Example.class));
+    }
+
     @Test
     @DisplayName("Deve obter um livro pelo isbn")
     public void getBookByISBN() {
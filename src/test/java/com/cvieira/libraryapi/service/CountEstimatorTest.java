@@ -0,0 +1,81 @@
+package com.cvieira.libraryapi.service;
+
+import com.cvieira.libraryapi.service.impl.CountEstimator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CountEstimatorTest {
+
+    private static final long REFRESH_SECONDS = 60;
+
+    private AtomicLong nanos;
+    private Map<String, Long> totals;
+    private Map<String, Integer> counts;
+    private CountEstimator<String> estimator;
+
+    @BeforeEach
+    public void setUp() {
+        nanos = new AtomicLong();
+        totals = new HashMap<>();
+        counts = new HashMap<>();
+        estimator = new CountEstimator<>(filter -> {
+            counts.merge(filter, 1, Integer::sum);
+            return totals.get(filter);
+        }, REFRESH_SECONDS, 100, nanos::get, Runnable::run);
+    }
+
+    @Test
+    @DisplayName("Deve contar na base apenas no primeiro pedido de cada filtro")
+    public void countOncePerFilter() {
+        totals.put("fulano", 10l);
+        totals.put("ciclano", 3l);
+
+        Assertions.assertEquals(10, estimator.estimate("fulano"));
+        Assertions.assertEquals(3, estimator.estimate("ciclano"));
+        advance(REFRESH_SECONDS - 1);
+        totals.put("fulano", 11l);
+        Assertions.assertEquals(10, estimator.estimate("fulano"));
+
+        Assertions.assertEquals(1, counts.get("fulano"));
+        Assertions.assertEquals(1, counts.get("ciclano"));
+    }
+
+    @Test
+    @DisplayName("Deve devolver o total anterior e recontar quando passar o intervalo de atualização")
+    public void refreshAfterInterval() {
+        totals.put("fulano", 10l);
+        estimator.estimate("fulano");
+        totals.put("fulano", 12l);
+
+        advance(REFRESH_SECONDS + 1);
+
+        Assertions.assertEquals(10, estimator.estimate("fulano"));
+        Assertions.assertEquals(2, counts.get("fulano"));
+        Assertions.assertEquals(12, estimator.estimate("fulano"));
+        Assertions.assertEquals(2, counts.get("fulano"));
+    }
+
+    @Test
+    @DisplayName("Deve descartar o total de um filtro sem pedidos e contá-lo de novo no pedido seguinte")
+    public void expireIdleFilter() {
+        totals.put("fulano", 10l);
+        estimator.estimate("fulano");
+        totals.put("fulano", 15l);
+
+        advance(REFRESH_SECONDS * 10 + 1);
+
+        Assertions.assertEquals(15, estimator.estimate("fulano"));
+        Assertions.assertEquals(2, counts.get("fulano"));
+    }
+
+    private void advance(long seconds) {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,212 @@
+package com.cvieira.libraryapi.service;
+
+import com.cvieira.libraryapi.service.impl.EmailDispatcher;
+import com.cvieira.libraryapi.service.impl.EmailServiceImpl;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class EmailServiceTest {
+
+    private GreenMail greenMail;
+    private MeterRegistry meterRegistry;
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        greenMail.stop();
+    }
+
+    @Test
+    @DisplayName("Deve enviar os emails em lotes pelo servidor smtp")
+    public void sendEmailsInBatches() throws Exception {
+        dispatcher = startDispatcher(smtpSender(), 2, 10);
+        EmailService emailService = createEmailService(dispatcher, 2);
+
+        List<String> emails = Arrays.asList(
+                "a@email.com", "b@email.com", "c@email.com", "d@email.com", "e@email.com");
+        Assertions.assertTrue(emailService.sendEmails("Livro atrasado", emails).isEmpty());
+
+        // o servidor conta uma mensagem por envio, e cada lote é um envio
+        Assertions.assertTrue(greenMail.waitForIncomingEmail(5000, 3));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        Assertions.assertEquals(emails.size(), received.length);
+        Assertions.assertEquals("Livro com empréstimo atrasado", received[0].getSubject());
+        // o tempo é registrado depois da resposta do servidor
+        awaitUntil(() -> meterRegistry.get("library.mail.send").timer().count() == 3);
+    }
+
+    @Test
+    @DisplayName("Deve esperar por espaço na fila cheia e entregar todos os emails")
+    public void waitForQueueAndDeliverAll() throws Exception {
+        JavaMailSender blockedSender = Mockito.mock(JavaMailSender.class);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            delivered.addAll(Arrays.asList(invocation.<SimpleMailMessage>getArgument(0).getTo()));
+            return null;
+        }).when(blockedSender).send(Mockito.any(SimpleMailMessage.class));
+        dispatcher = startDispatcher(blockedSender, 1, 1);
+        EmailService emailService = createEmailService(dispatcher, 2);
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            emails.add(i + "@email.com");
+        }
+
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<String>> rejected = producer.submit(() -> emailService.sendEmails("Livro atrasado", emails));
+            Assertions.assertTrue(sending.await(5, TimeUnit.SECONDS));
+            awaitUntil(() -> dispatcher.pending() == 1);
+            // um lote no worker e outro na fila: quem envia espera em vez de descartar o resto
+            Thread.sleep(200);
+            Assertions.assertFalse(rejected.isDone());
+
+            release.countDown();
+
+            Assertions.assertTrue(rejected.get(5, TimeUnit.SECONDS).isEmpty());
+            awaitUntil(() -> delivered.size() == emails.size());
+            Assertions.assertEquals(new HashSet<>(emails), new HashSet<>(delivered));
+            Assertions.assertEquals(0, meterRegistry.get("library.mail.rejected").counter().count());
+        } finally {
+            producer.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Não deve bloquear quem envia quando a entrega de emails está lenta")
+    public void slowDeliveryDoesNotBlockCaller() {
+        JavaMailSender slowSender = Mockito.mock(JavaMailSender.class);
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(2000);
+            return null;
+        }).when(slowSender).send(Mockito.any(SimpleMailMessage.class));
+        dispatcher = startDispatcher(slowSender, 1, 10);
+        EmailService emailService = createEmailService(dispatcher, 1);
+
+        long start = System.nanoTime();
+        emailService.sendEmails("Livro atrasado", Arrays.asList("a@email.com", "b@email.com", "c@email.com"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assertions.assertTrue(elapsedMillis < 500, "sendEmails took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    @DisplayName("Deve tentar novamente quando o envio falhar")
+    public void retryFailedDelivery() throws Exception {
+        JavaMailSender sender = Mockito.mock(JavaMailSender.class);
+        CountDownLatch delivered = new CountDownLatch(1);
+        Mockito.doThrow(new MailSendException("smtp indisponível"))
+                .doAnswer(invocation -> {
+                    delivered.countDown();
+                    return null;
+                })
+                .when(sender).send(Mockito.any(SimpleMailMessage.class));
+        dispatcher = startDispatcher(sender, 1, 10);
+
+        dispatcher.enqueue(createMessage("a@email.com"));
+
+        Assertions.assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        Mockito.verify(sender, Mockito.times(2)).send(Mockito.any(SimpleMailMessage.class));
+        Assertions.assertEquals(0, meterRegistry.get("library.mail.failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Deve descartar mensagens quando a fila estiver cheia")
+    public void rejectWhenQueueIsFull() throws Exception {
+        JavaMailSender blockedSender = Mockito.mock(JavaMailSender.class);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            return null;
+        }).when(blockedSender).send(Mockito.any(SimpleMailMessage.class));
+        dispatcher = startDispatcher(blockedSender, 1, 1);
+
+        Assertions.assertTrue(dispatcher.enqueue(createMessage("a@email.com")));
+        Assertions.assertTrue(sending.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(dispatcher.enqueue(createMessage("b@email.com")));
+        Assertions.assertFalse(dispatcher.enqueue(createMessage("c@email.com")));
+
+        Assertions.assertEquals(1, dispatcher.pending());
+        Assertions.assertEquals(1, meterRegistry.get("library.mail.rejected").counter().count());
+        Assertions.assertEquals(1, meterRegistry.get("library.mail.queue.depth").gauge().value());
+        release.countDown();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(condition.getAsBoolean());
+    }
+
+    private EmailDispatcher startDispatcher(JavaMailSender sender, int workers, int capacity) {
+        EmailDispatcher emailDispatcher = new EmailDispatcher(sender, meterRegistry, workers, capacity, 3, 10, 50);
+        emailDispatcher.start();
+        return emailDispatcher;
+    }
+
+    private EmailService createEmailService(EmailDispatcher emailDispatcher, int batchSize) {
+        EmailServiceImpl emailService = new EmailServiceImpl(emailDispatcher);
+        ReflectionTestUtils.setField(emailService, "remetent", "mail@library-api.com");
+        ReflectionTestUtils.setField(emailService, "batchSize", batchSize);
+        return emailService;
+    }
+
+    private JavaMailSender smtpSender() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        sender.setDefaultEncoding("UTF-8");
+        return sender;
+    }
+
+    private SimpleMailMessage createMessage(String to) {
+        SimpleMailMessage mailMessage = new SimpleMailMessage();
+        mailMessage.setFrom("mail@library-api.com");
+        mailMessage.setTo(to);
+        mailMessage.setText("Livro atrasado");
+        return mailMessage;
+    }
+}
@@ -0,0 +1,58 @@
+package com.cvieira.libraryapi.service;
+
+import com.cvieira.libraryapi.service.impl.LoanArchiver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+
+public class LoanArchiverTest {
+
+    private LoanService loanService;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        loanService = Mockito.mock(LoanService.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Deve arquivar em lotes até encontrar um lote incompleto")
+    public void archiveUntilShortBatch() {
+        Mockito.when(loanService.archiveReturned(LocalDate.now().minusDays(90), 2)).thenReturn(2, 2, 1);
+
+        int archived = new LoanArchiver(loanService, meterRegistry, 90, 2, 10, 0).archive();
+
+        Assertions.assertEquals(5, archived);
+        Mockito.verify(loanService, Mockito.times(3)).archiveReturned(Mockito.any(LocalDate.class), Mockito.eq(2));
+        Assertions.assertEquals(5, meterRegistry.get("library.loans.archived").counter().count());
+    }
+
+    @Test
+    @DisplayName("Deve limitar a quantidade de lotes por execução")
+    public void limitBatchesPerRun() {
+        Mockito.when(loanService.archiveReturned(Mockito.any(LocalDate.class), Mockito.eq(2))).thenReturn(2);
+
+        int archived = new LoanArchiver(loanService, meterRegistry, 90, 2, 3, 0).archive();
+
+        Assertions.assertEquals(6, archived);
+        Mockito.verify(loanService, Mockito.times(3)).archiveReturned(Mockito.any(LocalDate.class), Mockito.eq(2));
+    }
+
+    @Test
+    @DisplayName("Deve aguardar entre os lotes")
+    public void pauseBetweenBatches() {
+        Mockito.when(loanService.archiveReturned(Mockito.any(LocalDate.class), Mockito.eq(2))).thenReturn(2, 0);
+
+        long start = System.currentTimeMillis();
+        new LoanArchiver(loanService, meterRegistry, 90, 2, 10, 200).archive();
+
+        Assertions.assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+}
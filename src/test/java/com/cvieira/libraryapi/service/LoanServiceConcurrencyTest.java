@@ -0,0 +1,249 @@
+package com.cvieira.libraryapi.service;
+
+import com.cvieira.libraryapi.dto.LoanReturnResultDTO;
+import com.cvieira.libraryapi.exception.BusinessException;
+import com.cvieira.libraryapi.model.entity.Book;
+import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.model.repository.BookRepository;
+import com.cvieira.libraryapi.model.repository.LoanArchiveRepository;
+import com.cvieira.libraryapi.model.repository.LoanRepository;
+import com.cvieira.libraryapi.service.impl.ActiveLoanIndex;
+import com.cvieira.libraryapi.service.impl.BookSearchIndex;
+import com.cvieira.libraryapi.service.impl.BookServiceImpl;
+import com.cvieira.libraryapi.service.impl.LoanServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Empréstimos concorrentes por duas "instâncias" da aplicação, cada uma com o seu índice em memória
+ * e compartilhando a base: o índice admite um empréstimo por livro dentro da instância e a constraint
+ * da base impede o empréstimo duplicado entre instâncias.
+ * Cada empréstimo roda em uma transação, como no serviço gerenciado pelo Spring: o registro do empréstimo,
+ * a marcação do livro e a violação da constraint acontecem na transação confirmada depois da admissão no índice.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int CONTENDED_BOOKS = 20;
+    private static final int CONTENDED_ATTEMPTS = 2000;
+    private static final int BOOKS = 2000;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanArchiveRepository loanArchiveRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    LoanService[] instances;
+
+    ActiveLoanIndex[] indexes;
+
+    ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        BookService bookService = new BookServiceImpl(bookRepository, new BookSearchIndex(bookRepository), new NoOpCacheManager());
+        indexes = new ActiveLoanIndex[]{new ActiveLoanIndex(loanRepository), new ActiveLoanIndex(loanRepository)};
+        instances = new LoanService[]{
+                new LoanServiceImpl(loanRepository, loanArchiveRepository, indexes[0], bookService),
+                new LoanServiceImpl(loanRepository, loanArchiveRepository, indexes[1], bookService)
+        };
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve emprestar cada livro uma única vez quando vários empréstimos disputam os mesmos livros")
+    public void concurrentLoansOfSameBooks() throws Exception {
+        List<Book> books = createBooks(CONTENDED_BOOKS);
+
+        Result result = lend(books, CONTENDED_ATTEMPTS);
+
+        log.info("contended: {} attempts/s, {} loans, {} violations",
+                (long) result.attemptsPerSecond, result.loans, violations());
+        Assertions.assertEquals(CONTENDED_BOOKS, result.loans);
+        Assertions.assertEquals(0, violations());
+        Assertions.assertEquals(CONTENDED_BOOKS, booksOnLoan());
+    }
+
+    @Test
+    @DisplayName("Deve emprestar livros diferentes em paralelo sem recusas")
+    public void concurrentLoansOfDifferentBooks() throws Exception {
+        List<Book> books = createBooks(BOOKS);
+
+        Result result = lend(books, BOOKS);
+
+        log.info("uncontended: {} loans/s, {} loans, {} violations",
+                (long) result.attemptsPerSecond, result.loans, violations());
+        Assertions.assertEquals(BOOKS, result.loans);
+        Assertions.assertEquals(0, violations());
+        Assertions.assertEquals(BOOKS, booksOnLoan());
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro no índice quando a transação do empréstimo for desfeita")
+    public void releaseBookWhenLoanRolledBack() {
+        Book book = createBooks(1).get(0);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            instances[0].save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertFalse(indexes[0].isOnLoan(book.getId()));
+        Assertions.assertEquals(0, booksOnLoan());
+        transaction.executeWithoutResult(status -> instances[0].save(
+                Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build()));
+        Assertions.assertTrue(indexes[0].isOnLoan(book.getId()));
+        Assertions.assertEquals(1, booksOnLoan());
+    }
+
+    @Test
+    @DisplayName("Não deve liberar o livro quando o empréstimo for devolvido e o livro emprestado de novo durante a devolução em lote")
+    public void returnAllDuringConcurrentReturnAndLoan() throws Exception {
+        Book book = createBooks(1).get(0);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Loan loan = transaction.execute(status -> instances[0].save(
+                Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build()));
+        CountDownLatch returnedAndLoaned = new CountDownLatch(1);
+        CountDownLatch returnAllStarted = new CountDownLatch(1);
+
+        // outra instância devolve e empresta o livro de novo em uma transação ainda não confirmada
+        Future<?> concurrent = executor.submit(() -> transaction.executeWithoutResult(status -> {
+            loanRepository.markReturned(Collections.singletonList(loan.getId()));
+            loanRepository.save(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+            returnedAndLoaned.countDown();
+            await(returnAllStarted);
+            sleep(300);
+        }));
+        await(returnedAndLoaned);
+        Future<LoanReturnResultDTO> returnAll = executor.submit(() -> transaction.execute(status -> {
+            returnAllStarted.countDown();
+            return instances[0].returnAll(Collections.singletonList(loan.getId()), null);
+        }));
+        concurrent.get();
+
+        Assertions.assertEquals(0, returnAll.get().getReturned());
+        Assertions.assertEquals(Collections.singletonList(loan.getId()), returnAll.get().getAlreadyReturned());
+        Assertions.assertTrue(indexes[0].isOnLoan(book.getId()));
+        Assertions.assertEquals(1, booksOnLoan());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private Result lend(List<Book> books, int attempts) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            Book book = books.get(i % books.size());
+            LoanService loanService = instances[i % instances.length];
+            tasks.add(() -> {
+                try {
+                    transaction.executeWithoutResult(status -> loanService.save(
+                            Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build()));
+                    return true;
+                } catch (BusinessException ex) {
+                    return false;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        int loans = 0;
+        for (Future<Boolean> future : executor.invokeAll(tasks)) {
+            if (future.get()) {
+                loans++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(loans, attempts / (elapsed / 1_000_000_000d));
+    }
+
+    /**
+     * Empréstimos abertos além do primeiro de cada livro.
+     */
+    private int violations() {
+        List<Long> activeBookIds = loanRepository.findActiveBookIds();
+        return activeBookIds.size() - new HashSet<>(activeBookIds).size();
+    }
+
+    private long booksOnLoan() {
+        return bookRepository.findAll().stream().filter(Book::getOnLoan).count();
+    }
+
+    private List<Book> createBooks(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(Book.builder().isbn("isbn-" + i).author("Fulano").title("As aventuras").build());
+        }
+        return bookRepository.saveAll(books);
+    }
+
+    private static class Result {
+        private final int loans;
+        private final double attemptsPerSecond;
+
+        private Result(int loans, double attemptsPerSecond) {
+            this.loans = loans;
+            this.attemptsPerSecond = attemptsPerSecond;
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.cvieira.libraryapi.service;
 
 import com.cvieira.libraryapi.dto.LoanFilterDTO;
+import com.cvieira.libraryapi.dto.LoanReturnResultDTO;
 import com.cvieira.libraryapi.exception.BusinessException;
 import com.cvieira.libraryapi.model.entity.Book;
 import com.cvieira.libraryapi.model.entity.Loan;
+import com.cvieira.libraryapi.model.entity.LoanArchive;
+import com.cvieira.libraryapi.model.repository.LoanArchiveRepository;
 import com.cvieira.libraryapi.model.repository.LoanRepository;
+import com.cvieira.libraryapi.model.repository.LoanStatus;
+import com.cvieira.libraryapi.service.impl.ActiveLoanIndex;
 import com.cvieira.libraryapi.service.impl.LoanServiceImpl;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,15 +19,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,13 +41,21 @@ import java.util.Optional;
 public class LoanServiceTest {
 
     private LoanService loanService;
+    private ActiveLoanIndex activeLoanIndex;
 
     @MockBean
     private LoanRepository repository;
 
+    @MockBean
+    private LoanArchiveRepository archiveRepository;
+
+    @MockBean
+    private BookService bookService;
+
     @BeforeEach
     public void setUp() {
-        loanService = new LoanServiceImpl(repository);
+        activeLoanIndex = new ActiveLoanIndex(repository);
+        loanService = new LoanServiceImpl(repository, archiveRepository, activeLoanIndex, bookService);
     }
 
     @Test
@@ -57,11 +76,13 @@ public class LoanServiceTest {
                 .loanDate(savingLoan.getLoanDate())
                 .build();
 
-        Mockito.when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
         Mockito.when(repository.save(savingLoan)).thenReturn(savedLoan);
 
         Loan loan = loanService.save(savingLoan);
 
+        Assertions.assertTrue(activeLoanIndex.isOnLoan(book.getId()));
+        Mockito.verify(repository, Mockito.never()).existsByBookAndNotReturned(book);
+        Mockito.verify(bookService).updateOnLoan(book, true);
 
         Assertions.assertEquals(savedLoan.getId(), loan.getId());
         Assertions.assertEquals(savedLoan.getBook().getId(), loan.getBook().getId());
@@ -81,12 +102,33 @@ public class LoanServiceTest {
                 .build();
 
 
-        Mockito.when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        Mockito.when(repository.findActiveBookIds()).thenReturn(Arrays.asList(book.getId()));
+        activeLoanIndex.rebuild();
 
         Assertions.assertThrows(BusinessException.class, () -> loanService.save(savingLoan));
 
 
         Mockito.verify(repository, Mockito.never()).save(savingLoan);
+        Mockito.verify(bookService, Mockito.never()).updateOnLoan(book, true);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio quando a base recusar um segundo empréstimo aberto do livro")
+    public void loanedBookRejectedByDatabase() {
+        Book book = Book.builder().id(1l).build();
+        Loan savingLoan = Loan.builder()
+                .book(book)
+                .customer("fulano")
+                .loanDate(LocalDate.now())
+                .build();
+        ConstraintViolationException violation = new ConstraintViolationException(
+                "Unique index or primary key violation", new SQLException(), "PUBLIC.UK_LOAN_ACTIVE_BOOK_INDEX_2");
+        Mockito.when(repository.save(savingLoan)).thenThrow(new DataIntegrityViolationException("duplicado", violation));
+
+        Assertions.assertThrows(BusinessException.class, () -> loanService.save(savingLoan));
+
+        // o livro está emprestado, então continua marcado no índice
+        Assertions.assertTrue(activeLoanIndex.isOnLoan(book.getId()));
     }
 
     @Test
@@ -116,12 +158,13 @@ public class LoanServiceTest {
         Loan loan = createLoan();
         loan.setId(1l);
         loan.setReturned(true);
-        Mockito.when(repository.save(loan)).thenReturn(loan);
+        Mockito.when(repository.markReturned(Arrays.asList(1l))).thenReturn(1);
 
 
         Loan updatedLoan = loanService.update(loan);
 
         Assertions.assertTrue(updatedLoan.isReturned());
+        Mockito.verify(repository, Mockito.never()).save(loan);
     }
 
     @Test
@@ -153,6 +196,282 @@ public class LoanServiceTest {
         Assertions.assertEquals(10, result.getPageable().getPageSize());
     }
 
+    @Test
+    @DisplayName("Deve percorrer os empréstimos atrasados em blocos")
+    public void forEachLateLoansChunk() {
+        Loan first = createLoan();
+        first.setId(1l);
+        Loan second = createLoan();
+        second.setId(2l);
+        Loan third = createLoan();
+        third.setId(3l);
+
+        Mockito.when(repository.findLateLoansAfter(
+                Mockito.any(LocalDate.class), Mockito.eq(0l), Mockito.any(PageRequest.class)))
+                .thenReturn(Arrays.asList(first, second));
+        Mockito.when(repository.findLateLoansAfter(
+                Mockito.any(LocalDate.class), Mockito.eq(2l), Mockito.any(PageRequest.class)))
+                .thenReturn(Arrays.asList(third));
+
+        List<List<Loan>> chunks = new ArrayList<>();
+        loanService.forEachLateLoansChunk(2, chunks::add);
+
+        Assertions.assertEquals(2, chunks.size());
+        Assertions.assertEquals(Arrays.asList(first, second), chunks.get(0));
+        Assertions.assertEquals(Arrays.asList(third), chunks.get(1));
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote informando os não encontrados e já devolvidos")
+    public void returnAll() {
+        // criados antes do when(...): stubbing de outro mock dentro do thenReturn interrompe o que está em andamento
+        List<LoanStatus> byId = Arrays.asList(status(1l, "001", false), status(2l, "002", true));
+        List<LoanStatus> byIsbn = Arrays.asList(status(4l, "004", null));
+        Mockito.when(repository.findStatusByIds(Arrays.asList(1l, 2l, 3l))).thenReturn(byId);
+        Mockito.when(repository.findActiveStatusByIsbns(Arrays.asList("004", "005"))).thenReturn(byIsbn);
+        Mockito.when(repository.markReturned(Arrays.asList(1l, 4l))).thenReturn(2);
+
+        LoanReturnResultDTO result = loanService.returnAll(Arrays.asList(1l, 2l, 3l, 1l), Arrays.asList("004", "005"));
+
+        Assertions.assertEquals(2, result.getReturned());
+        Assertions.assertEquals(Arrays.asList(3l), result.getNotFound());
+        Assertions.assertEquals(Arrays.asList(2l), result.getAlreadyReturned());
+        Assertions.assertEquals(Arrays.asList("005"), result.getIsbnsNotLoaned());
+        Assertions.assertFalse(activeLoanIndex.isOnLoan(4l));
+        Mockito.verify(repository, Mockito.times(1)).markReturned(Mockito.anyCollection());
+        Mockito.verify(bookService).updateOnLoan(new HashSet<>(Arrays.asList(1l, 4l)), false);
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro ao devolver o empréstimo")
+    public void releaseBookOnReturn() {
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+        activeLoanIndex.tryAcquire(loan.getBook().getId());
+        Mockito.when(repository.markReturned(Arrays.asList(1l))).thenReturn(1);
+
+        loanService.update(loan);
+
+        Assertions.assertEquals(Boolean.TRUE, loanService.getAvailability(Arrays.asList(1l)).get(1l));
+        Mockito.verify(bookService).updateOnLoan(loan.getBook(), false);
+    }
+
+    @Test
+    @DisplayName("Não deve liberar o livro ao devolver novamente um empréstimo já devolvido")
+    public void returnAlreadyReturnedLoan() {
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+        // outro empréstimo do mesmo livro está em aberto
+        activeLoanIndex.tryAcquire(loan.getBook().getId());
+        Mockito.when(repository.markReturned(Arrays.asList(1l))).thenReturn(0);
+
+        loanService.update(loan);
+
+        Assertions.assertTrue(activeLoanIndex.isOnLoan(loan.getBook().getId()));
+        Mockito.verify(bookService, Mockito.never()).updateOnLoan(Mockito.any(Book.class), Mockito.anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Deve emprestar novamente o livro ao reabrir um empréstimo devolvido")
+    public void reopenReturnedLoan() {
+        Loan loan = createLoan();
+        loan.setId(1l);
+        Mockito.when(repository.reopen(1l, 1l)).thenReturn(1);
+
+        loanService.update(loan);
+
+        Assertions.assertTrue(activeLoanIndex.isOnLoan(loan.getBook().getId()));
+        Mockito.verify(bookService).updateOnLoan(loan.getBook(), true);
+    }
+
+    @Test
+    @DisplayName("Não deve alterar o livro ao reabrir um empréstimo que já está em aberto")
+    public void reopenOpenLoan() {
+        Loan loan = createLoan();
+        loan.setId(1l);
+        activeLoanIndex.tryAcquire(loan.getBook().getId());
+        Mockito.when(repository.reopen(1l, 1l)).thenReturn(0);
+
+        loanService.update(loan);
+
+        Assertions.assertTrue(activeLoanIndex.isOnLoan(loan.getBook().getId()));
+        Mockito.verify(bookService, Mockito.never()).updateOnLoan(Mockito.any(Book.class), Mockito.anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao reabrir um empréstimo de livro emprestado novamente")
+    public void reopenLoanOfLoanedBook() {
+        Loan loan = createLoan();
+        loan.setId(1l);
+        ConstraintViolationException violation = new ConstraintViolationException(
+                "Unique index or primary key violation", new SQLException(), "PUBLIC.UK_LOAN_ACTIVE_BOOK_INDEX_2");
+        Mockito.when(repository.reopen(1l, 1l)).thenThrow(new DataIntegrityViolationException("duplicado", violation));
+
+        Assertions.assertThrows(BusinessException.class, () -> loanService.update(loan));
+
+        Assertions.assertFalse(activeLoanIndex.isOnLoan(loan.getBook().getId()));
+        Mockito.verify(bookService, Mockito.never()).updateOnLoan(Mockito.any(Book.class), Mockito.anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Não deve buscar empréstimos arquivados quando a página é preenchida pelos empréstimos recentes")
+    public void loansByBookFromHotTable() {
+        Book book = Book.builder().id(1l).build();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        List<Loan> loans = Arrays.asList(createLoan(), createLoan());
+        Mockito.when(repository.findByBook(book, byIdDesc(pageRequest))).thenReturn(new PageImpl<>(loans, pageRequest, 3));
+        Mockito.when(archiveRepository.countByBookId(1l)).thenReturn(5l);
+
+        Page<Loan> result = loanService.getLoansByBook(book, pageRequest);
+
+        Assertions.assertEquals(loans, result.getContent());
+        Assertions.assertEquals(8, result.getTotalElements());
+        Mockito.verify(archiveRepository, Mockito.never())
+                .findByBookId(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve completar a página com os empréstimos arquivados do livro")
+    public void loansByBookFromArchive() {
+        Book book = Book.builder().id(1l).build();
+        PageRequest pageRequest = PageRequest.of(1, 2);
+        Loan hot = createLoan();
+        Mockito.when(repository.findByBook(book, byIdDesc(pageRequest)))
+                .thenReturn(new PageImpl<>(Arrays.asList(hot), pageRequest, 3));
+        LoanArchive archived = LoanArchive.builder().id(10l).bookId(1l).customer("fulano")
+                .loanDate(LocalDate.now().minusDays(200)).returnDate(LocalDate.now().minusDays(190)).build();
+        Mockito.when(archiveRepository.findByBookId(1l, 0, 1)).thenReturn(Arrays.asList(archived));
+        Mockito.when(archiveRepository.countByBookId(1l)).thenReturn(4l);
+
+        Page<Loan> result = loanService.getLoansByBook(book, pageRequest);
+
+        Assertions.assertEquals(2, result.getContent().size());
+        Assertions.assertEquals(hot, result.getContent().get(0));
+        Loan loan = result.getContent().get(1);
+        Assertions.assertEquals(10l, loan.getId());
+        Assertions.assertTrue(loan.isReturned());
+        Assertions.assertEquals(book, loan.getBook());
+        Assertions.assertEquals(7, result.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Deve pular os empréstimos recentes ao paginar apenas pelo arquivo")
+    public void loansByBookOnlyFromArchive() {
+        Book book = Book.builder().id(1l).build();
+        PageRequest pageRequest = PageRequest.of(2, 2);
+        Mockito.when(repository.findByBook(book, byIdDesc(pageRequest)))
+                .thenReturn(new PageImpl<>(new ArrayList<>(), pageRequest, 3));
+        LoanArchive archived = LoanArchive.builder().id(10l).bookId(1l).build();
+        Mockito.when(archiveRepository.findByBookId(1l, 1, 2)).thenReturn(Arrays.asList(archived));
+        Mockito.when(archiveRepository.countByBookId(1l)).thenReturn(2l);
+
+        Page<Loan> result = loanService.getLoansByBook(book, pageRequest);
+
+        Assertions.assertEquals(1, result.getContent().size());
+        Assertions.assertEquals(5, result.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Deve manter a ordenação informada para os empréstimos recentes")
+    public void loansByBookWithSort() {
+        Book book = Book.builder().id(1l).build();
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("loanDate"));
+        List<Loan> loans = Arrays.asList(createLoan(), createLoan());
+        Mockito.when(repository.findByBook(book, pageRequest)).thenReturn(new PageImpl<>(loans, pageRequest, 2));
+        Mockito.when(archiveRepository.countByBookId(1l)).thenReturn(0l);
+
+        Page<Loan> result = loanService.getLoansByBook(book, pageRequest);
+
+        Assertions.assertEquals(loans, result.getContent());
+        Mockito.verify(repository).findByBook(book, pageRequest);
+    }
+
+    @Test
+    @DisplayName("Deve arquivar um lote de empréstimos devolvidos")
+    public void archiveReturned() {
+        LocalDate returnedBefore = LocalDate.now().minusDays(90);
+        Mockito.when(repository.findArchivableIds(returnedBefore, PageRequest.of(0, 2))).thenReturn(Arrays.asList(1l, 2l));
+        Mockito.when(archiveRepository.copyReturned(Arrays.asList(1l, 2l))).thenReturn(2);
+        Mockito.when(repository.deleteReturned(Arrays.asList(1l, 2l))).thenReturn(2);
+
+        int archived = loanService.archiveReturned(returnedBefore, 2);
+
+        Assertions.assertEquals(2, archived);
+        Mockito.verify(archiveRepository).copyReturned(Arrays.asList(1l, 2l));
+    }
+
+    @Test
+    @DisplayName("Deve desfazer o arquivamento quando a remoção não corresponder à cópia")
+    public void archiveReturnedMismatch() {
+        LocalDate returnedBefore = LocalDate.now().minusDays(90);
+        Mockito.when(repository.findArchivableIds(returnedBefore, PageRequest.of(0, 2))).thenReturn(Arrays.asList(1l, 2l));
+        Mockito.when(archiveRepository.copyReturned(Arrays.asList(1l, 2l))).thenReturn(2);
+        Mockito.when(repository.deleteReturned(Arrays.asList(1l, 2l))).thenReturn(1);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> loanService.archiveReturned(returnedBefore, 2));
+    }
+
+    @Test
+    @DisplayName("Deve informar como já devolvido um empréstimo arquivado")
+    public void returnArchivedLoan() {
+        Mockito.when(archiveRepository.findExistingIds(Arrays.asList(7l))).thenReturn(Arrays.asList(7l));
+
+        LoanReturnResultDTO result = loanService.returnAll(Arrays.asList(7l), null);
+
+        Assertions.assertEquals(0, result.getReturned());
+        Assertions.assertEquals(Arrays.asList(7l), result.getAlreadyReturned());
+        Assertions.assertTrue(result.getNotFound().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve corrigir o índice de empréstimos ativos com a base")
+    public void reconcileActiveLoanIndex() {
+        activeLoanIndex.tryAcquire(1l);
+        Mockito.when(repository.findActiveBookIds()).thenReturn(Arrays.asList(2l));
+
+        activeLoanIndex.reconcile();
+        activeLoanIndex.reconcile();
+
+        Assertions.assertFalse(activeLoanIndex.isOnLoan(1l));
+        Assertions.assertTrue(activeLoanIndex.isOnLoan(2l));
+    }
+
+    @Test
+    @DisplayName("Não deve desfazer no índice empréstimos e devoluções ainda não confirmados na base")
+    public void reconcileKeepsPendingChanges() {
+        Mockito.when(repository.findActiveBookIds()).thenReturn(Arrays.asList(2l));
+        activeLoanIndex.reconcile();
+        activeLoanIndex.tryAcquire(1l);
+        activeLoanIndex.release(2l);
+
+        activeLoanIndex.reconcile();
+
+        Assertions.assertTrue(activeLoanIndex.isOnLoan(1l));
+        Assertions.assertFalse(activeLoanIndex.isOnLoan(2l));
+
+        Mockito.when(repository.findActiveBookIds()).thenReturn(Arrays.asList(1l));
+        activeLoanIndex.reconcile();
+
+        Assertions.assertTrue(activeLoanIndex.isOnLoan(1l));
+        Assertions.assertFalse(activeLoanIndex.isOnLoan(2l));
+    }
+
+    private LoanStatus status(Long id, String isbn, Boolean returned) {
+        LoanStatus status = Mockito.mock(LoanStatus.class);
+        Mockito.when(status.getId()).thenReturn(id);
+        Mockito.when(status.getBookId()).thenReturn(id);
+        Mockito.when(status.getIsbn()).thenReturn(isbn);
+        Mockito.when(status.getReturned()).thenReturn(returned);
+        return status;
+    }
+
+    private static PageRequest byIdDesc(PageRequest pageRequest) {
+        return PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(), Sort.by(Sort.Direction.DESC, "id"));
+    }
+
     public Loan createLoan() {
         Book book = Book.builder().id(1l).build();
         return Loan.builder()
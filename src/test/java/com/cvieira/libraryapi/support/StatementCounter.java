@@ -0,0 +1,53 @@
+package com.cvieira.libraryapi.support;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate, para que os testes falhem quando uma mudança
+ * aumentar o número de comandos de uma consulta ou endpoint.
+ * As estatísticas são globais à SessionFactory, então o contador deve ser usado sem outras threads
+ * acessando a base durante a medição.
+ */
+public class StatementCounter {
+
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    public StatementCounter(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.statistics = statistics(entityManager.getEntityManagerFactory());
+    }
+
+    /**
+     * Envia as alterações pendentes, limpa o contexto de persistência e o cache de segundo nível
+     * e zera a contagem, para que apenas os comandos do código medido sejam contados.
+     */
+    public StatementCounter start() {
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statistics.clear();
+        return this;
+    }
+
+    public long count() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    public void assertStatements(long expected) {
+        Assertions.assertEquals(expected, count(),
+                () -> "Unexpected number of SQL statements, queries: " + Arrays.toString(statistics.getQueries()));
+    }
+
+    private static Statistics statistics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        return statistics;
+    }
+}